@@ -0,0 +1,228 @@
+package org.mql.ai.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mql.ai.store.HnswEmbeddingStore;
+import org.mql.ai.store.HnswOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Corpus et services des benchmarks : PDFs de cours embarqués, embeddings et LLM factices
+ * déterministes (aucun appel réseau), configuration identique à rag.properties.
+ */
+final class BenchmarkFixtures {
+
+    static final int DIMENSION = 384;
+    static final int CHUNK_SIZE = 500;
+    static final int CHUNK_OVERLAP = 50;
+
+    static final List<String> QUESTIONS = List.of(
+        "Qu'est-ce que le cloud computing ?",
+        "Quelle est la différence entre IaaS, PaaS et SaaS ?",
+        "Comment fonctionne la virtualisation dans un datacenter ?",
+        "What are the advantages of a public cloud?",
+        "How does elasticity work in cloud computing?",
+        "Quels sont les modèles de déploiement du cloud ?");
+
+    private BenchmarkFixtures() {
+    }
+
+    // -Drag.benchmark.courses=... pour mesurer un autre corpus
+    static List<Path> coursePdfs() {
+        Path directory = Paths.get(System.getProperty("rag.benchmark.courses", "src/main/resources/courses"));
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> pdfs = files.filter(path -> path.toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+                .sorted()
+                .collect(Collectors.toList());
+            if (pdfs.isEmpty()) {
+                throw new IllegalStateException("Aucun PDF dans " + directory.toAbsolutePath());
+            }
+            return pdfs;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Path tempDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("rag-jmh");
+            directory.toFile().deleteOnExit();
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // services réels, dépendances externes remplacées par les modèles factices
+    static PDFLoaderServiceDefault pdfLoader(Path workDirectory, HnswEmbeddingStore store, LexicalIndex lexicalIndex) {
+        RagMetrics metrics = new RagMetrics(new SimpleMeterRegistry());
+        EmbeddingDiskCache diskCache = new EmbeddingDiskCache(false,
+            workDirectory.resolve("embedding-cache.bin").toString(), "fake", 0.3);
+        EmbeddingService embeddingService = new EmbeddingServiceDefault(new FakeEmbeddingModel(), store,
+            diskCache, metrics, 4, 8, 16, 1, 128, 2000, 2);
+        IngestionManifest manifest = new IngestionManifest(workDirectory.resolve("manifest.log").toString(),
+            workDirectory.resolve("manifest.json").toString(), 2.0, new ObjectMapper().registerModule(new JavaTimeModule()));
+        return new PDFLoaderServiceDefault(coursePdfs().get(0).getParent().toString(),
+            CHUNK_SIZE, CHUNK_OVERLAP, false, 0, 1, 4, 2, 8, 64, 16, 16, 64, 0, "fake",
+            embeddingService, store, event -> { }, manifest, lexicalIndex, diskCache, metrics);
+    }
+
+    static List<TextSegment> split(Document document, String fileName) {
+        List<TextSegment> segments = DocumentSplitters.recursive(CHUNK_SIZE, CHUNK_OVERLAP).split(document);
+        for (int i = 0; i < segments.size(); i++) {
+            segments.get(i).metadata().put("file_name", fileName);
+            segments.get(i).metadata().put("chunk_index", String.valueOf(i));
+        }
+        return segments;
+    }
+
+    /**
+     * Corpus indexé en mémoire (HNSW + BM25) et RAGServiceDefault branché dessus,
+     * avec les correspondances de chaque question de QUESTIONS.
+     */
+    static final class Corpus {
+        final HnswEmbeddingStore store;
+        final LexicalIndex lexicalIndex;
+        final PDFLoaderServiceDefault pdfLoader;
+        final RAGServiceDefault ragService;
+        final ContextAssembler contextAssembler;
+        final List<TextSegment> segments = new ArrayList<>();
+        final List<List<EmbeddingMatch<TextSegment>>> matches = new ArrayList<>();
+
+        Corpus() {
+            Path workDirectory = tempDirectory();
+            store = new HnswEmbeddingStore(HnswOptions.defaults(null));
+            lexicalIndex = new LexicalIndex(true, workDirectory.resolve("lexical.bin").toString(), 1.2, 0.75, 0);
+            pdfLoader = pdfLoader(workDirectory, store, lexicalIndex);
+            contextAssembler = new ContextAssembler(1500, 4, CHUNK_OVERLAP);
+
+            FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel();
+            for (Path pdf : coursePdfs()) {
+                try {
+                    segments.addAll(split(pdfLoader.parsePDF(pdf), pdf.getFileName().toString()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+            List<String> ids = store.addAll(embeddings, segments);
+            lexicalIndex.add(ids, segments);
+
+            for (String question : QUESTIONS) {
+                matches.add(store.search(EmbeddingSearchRequest.builder()
+                    .queryEmbedding(embeddingModel.embed(question).content())
+                    .maxResults(5)
+                    .minScore(0.0)
+                    .build()).matches());
+            }
+
+            RagMetrics metrics = new RagMetrics(new SimpleMeterRegistry());
+            ragService = new RAGServiceDefault(new FakeChatModel(), new FakeStreamingChatModel(), store, pdfLoader,
+                new QuestionEmbeddingCache("fake", 0, 60),
+                new SemanticAnswerCache(0, 0.95, 60),
+                new EmbeddingDiskCache(false, workDirectory.resolve("cache.bin").toString(), "fake", 0.3),
+                lexicalIndex, contextAssembler,
+                new QuestionCoalescer(false, 120),
+                new QueryEmbeddingBatcher(embeddingModel, false, 0, 1, 1, 120),
+                new LlmConcurrencyLimiter(Integer.MAX_VALUE, 0, 0, 1),
+                metrics,
+                5, 0.0, 20, 60,
+                "Contexte:\n%s\n\nQuestion: %s\n\nRéponse:",
+                "Context:\n%s\n\nQuestion: %s\n\nAnswer:",
+                "Aucune information trouvée", "No information found", "Erreur", "Error");
+        }
+
+        void close() {
+            store.close();
+            lexicalIndex.close();
+        }
+    }
+
+    /**
+     * Embeddings déterministes par hachage des mots (sac de mots normalisé) :
+     * des textes proches partagent des composantes, sans dépendre d'Ollama.
+     */
+    static final class FakeEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            List<Embedding> embeddings = new ArrayList<>(segments.size());
+            for (TextSegment segment : segments) {
+                embeddings.add(Embedding.from(vector(segment.text())));
+            }
+            return Response.from(embeddings);
+        }
+
+        @Override
+        public int dimension() {
+            return DIMENSION;
+        }
+
+        static float[] vector(String text) {
+            float[] vector = new float[DIMENSION];
+            for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (word.length() > 2) {
+                    int hash = word.hashCode();
+                    vector[Math.floorMod(hash, DIMENSION)] += 1f;
+                    vector[Math.floorMod(hash * 31 + 17, DIMENSION)] += 0.5f;
+                }
+            }
+            double norm = 0;
+            for (float v : vector) {
+                norm += v * v;
+            }
+            if (norm > 0) {
+                float inverse = (float) (1.0 / Math.sqrt(norm));
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] *= inverse;
+                }
+            }
+            return vector;
+        }
+    }
+
+    // réponse fixe dérivée du prompt : le coût mesuré reste celui de l'application
+    static final class FakeChatModel implements ChatLanguageModel {
+
+        @Override
+        public Response<AiMessage> generate(List<ChatMessage> messages) {
+            return Response.from(AiMessage.from("Réponse factice (" + messages.size() + " messages)."));
+        }
+    }
+
+    static final class FakeStreamingChatModel implements StreamingChatLanguageModel {
+
+        @Override
+        public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+            String answer = "Réponse factice en streaming.";
+            for (String token : answer.split(" ")) {
+                handler.onNext(token + " ");
+            }
+            handler.onComplete(Response.from(AiMessage.from(answer)));
+        }
+    }
+}
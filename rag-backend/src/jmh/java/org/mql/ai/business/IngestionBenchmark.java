@@ -0,0 +1,80 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.segment.TextSegment;
+import org.mql.ai.store.HnswEmbeddingStore;
+import org.mql.ai.store.HnswOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Étages CPU de l'ingestion sur les PDFs de cours : extraction PDFBox (parsePDF, comme loadPDF)
+ * et découpage DocumentSplitters.recursive avec les paramètres de rag.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+
+    private HnswEmbeddingStore store;
+    private LexicalIndex lexicalIndex;
+    private PDFLoaderServiceDefault pdfLoader;
+    private List<Path> pdfs;
+    private List<Document> documents;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path workDirectory = BenchmarkFixtures.tempDirectory();
+        store = new HnswEmbeddingStore(HnswOptions.defaults(null));
+        lexicalIndex = new LexicalIndex(false, workDirectory.resolve("lexical.bin").toString(), 1.2, 0.75, 0);
+        pdfLoader = BenchmarkFixtures.pdfLoader(workDirectory, store, lexicalIndex);
+        pdfs = BenchmarkFixtures.coursePdfs();
+        documents = new ArrayList<>();
+        for (Path pdf : pdfs) {
+            documents.add(pdfLoader.parsePDF(pdf));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+        lexicalIndex.close();
+    }
+
+    @Benchmark
+    public void parsePdfs(Blackhole blackhole) throws IOException {
+        for (Path pdf : pdfs) {
+            blackhole.consume(pdfLoader.parsePDF(pdf));
+        }
+    }
+
+    @Benchmark
+    public int splitDocuments() {
+        int segments = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            List<TextSegment> split = BenchmarkFixtures.split(documents.get(i), pdfs.get(i).getFileName().toString());
+            segments += split.size();
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,84 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.mql.ai.models.ChatRequest;
+import org.mql.ai.models.ChatResponse;
+import org.mql.ai.models.SourceInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin CPU d'une question (hors appels Ollama) : détection de langue, contexte,
+ * prompt, sources, et processQuestion de bout en bout avec les modèles factices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryPathBenchmark {
+
+    // indice de la question de BenchmarkFixtures.QUESTIONS
+    @Param({"0", "3"})
+    public int question;
+
+    private BenchmarkFixtures.Corpus corpus;
+    private ChatRequest request;
+    private List<EmbeddingMatch<TextSegment>> matches;
+    private String context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        corpus = new BenchmarkFixtures.Corpus();
+        request = new ChatRequest(BenchmarkFixtures.QUESTIONS.get(question), true);
+        matches = corpus.matches.get(question);
+        context = corpus.contextAssembler.assemble(matches).text();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        corpus.close();
+    }
+
+    @Benchmark
+    public String determineLanguage() {
+        return corpus.ragService.determineLanguage(request);
+    }
+
+    @Benchmark
+    public ContextAssembler.Context assembleContext() {
+        return corpus.contextAssembler.assemble(matches);
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return corpus.ragService.buildPrompt(request.getQuestion(), context, "fr");
+    }
+
+    @Benchmark
+    public List<SourceInfo> buildSourcesDeduplicated() {
+        return corpus.ragService.buildSourcesDeduplicated(matches);
+    }
+
+    // embedding factice + HNSW + BM25 + RRF + contexte + prompt + LLM factice
+    @Benchmark
+    public ChatResponse processQuestion() {
+        return corpus.ragService.processQuestion(request);
+    }
+}
@@ -0,0 +1,319 @@
+package org.mql.ai.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remplaçant HTTP de ChromaDB (API v1 utilisée par LangChain4j) : collections en mémoire,
+ * recherche exacte en distance cosinus, filtres "where" d'égalité ($eq, $and, $or).
+ */
+final class FakeChromaServer implements AutoCloseable {
+
+    private static final String PREFIX = "/api/v1/collections";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LatencyDistribution latency;
+
+    private final Map<String, Collection> collectionsById = new ConcurrentHashMap<>();
+    private final Map<String, Collection> collectionsByName = new ConcurrentHashMap<>();
+
+    final AtomicLong queries = new AtomicLong();
+    final AtomicLong writes = new AtomicLong();
+
+    private record Entry(float[] vector, String document, Map<String, Object> metadata) {}
+
+    private record Scored(String id, Entry entry, double distance) {}
+
+    private static final class Collection {
+        final String id = UUID.randomUUID().toString();
+        final String name;
+        final Map<String, Entry> entries = new LinkedHashMap<>();
+
+        Collection(String name) {
+            this.name = name;
+        }
+
+        Map<String, Object> describe() {
+            return Map.of("id", id, "name", name, "metadata", Map.of("hnsw:space", "cosine"));
+        }
+    }
+
+    FakeChromaServer(LatencyDistribution latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-chroma");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(PREFIX, this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    int size() {
+        return collectionsById.values().stream().mapToInt(collection -> {
+            synchronized (collection) {
+                return collection.entries.size();
+            }
+        }).sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        latency.pause();
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+        // path[0] vide, path[1] = nom ou id de collection, path[2] = opération
+        try {
+            if (path.length <= 1 && "POST".equals(method)) {
+                String name = read(exchange).path("name").asText();
+                Collection collection = collectionsByName.computeIfAbsent(name, Collection::new);
+                collectionsById.putIfAbsent(collection.id, collection);
+                respond(exchange, 200, collection.describe());
+            } else if (path.length == 2 && "GET".equals(method)) {
+                Collection collection = collectionsByName.get(path[1]);
+                if (collection == null) {
+                    respond(exchange, 404, Map.of("error", "Collection " + path[1] + " does not exist."));
+                } else {
+                    respond(exchange, 200, collection.describe());
+                }
+            } else if (path.length == 2 && "DELETE".equals(method)) {
+                Collection removed = collectionsByName.remove(path[1]);
+                if (removed != null) {
+                    collectionsById.remove(removed.id);
+                }
+                respond(exchange, 200, Map.of());
+            } else if (path.length == 3 && "POST".equals(method)) {
+                Collection collection = collectionsById.get(path[1]);
+                if (collection == null) {
+                    respond(exchange, 404, Map.of("error", "Collection " + path[1] + " does not exist."));
+                    return;
+                }
+                JsonNode request = read(exchange);
+                switch (path[2]) {
+                    case "add" -> respond(exchange, 201, add(collection, request));
+                    case "query" -> respond(exchange, 200, query(collection, request));
+                    case "delete" -> respond(exchange, 200, delete(collection, request));
+                    default -> respond(exchange, 404, Map.of("error", "Opération inconnue: " + path[2]));
+                }
+            } else {
+                respond(exchange, 404, Map.of("error", "Route non simulée: " + method + " " + exchange.getRequestURI()));
+            }
+        } catch (RuntimeException e) {
+            respond(exchange, 500, Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean add(Collection collection, JsonNode request) {
+        JsonNode ids = request.path("ids");
+        synchronized (collection) {
+            for (int i = 0; i < ids.size(); i++) {
+                JsonNode metadata = request.path("metadatas").path(i);
+                collection.entries.put(ids.get(i).asText(), new Entry(
+                    normalize(toVector(request.path("embeddings").get(i))),
+                    request.path("documents").path(i).isTextual() ? request.path("documents").get(i).asText() : null,
+                    metadata.isObject() ? mapper.convertValue(metadata, Map.class) : null));
+            }
+        }
+        writes.incrementAndGet();
+        return true;
+    }
+
+    private Map<String, Object> query(Collection collection, JsonNode request) {
+        queries.incrementAndGet();
+        int limit = request.path("n_results").asInt(10);
+        JsonNode where = request.path("where");
+
+        List<List<String>> ids = new ArrayList<>();
+        List<List<List<Float>>> embeddings = new ArrayList<>();
+        List<List<String>> documents = new ArrayList<>();
+        List<List<Map<String, Object>>> metadatas = new ArrayList<>();
+        List<List<Double>> distances = new ArrayList<>();
+
+        for (JsonNode queryEmbedding : request.path("query_embeddings")) {
+            float[] query = normalize(toVector(queryEmbedding));
+            List<Scored> scored = new ArrayList<>();
+            synchronized (collection) {
+                for (Map.Entry<String, Entry> entry : collection.entries.entrySet()) {
+                    if (matches(where, entry.getValue().metadata())) {
+                        scored.add(new Scored(entry.getKey(), entry.getValue(),
+                            1.0 - dot(query, entry.getValue().vector())));
+                    }
+                }
+            }
+            scored.sort(Comparator.comparingDouble(Scored::distance));
+            List<Scored> top = scored.subList(0, Math.min(limit, scored.size()));
+
+            ids.add(top.stream().map(Scored::id).toList());
+            embeddings.add(top.stream().map(s -> toList(s.entry().vector())).toList());
+            documents.add(top.stream().map(s -> s.entry().document()).toList());
+            metadatas.add(top.stream().map(s -> s.entry().metadata()).toList());
+            distances.add(top.stream().map(Scored::distance).toList());
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ids", ids);
+        response.put("embeddings", embeddings);
+        response.put("documents", documents);
+        response.put("metadatas", metadatas);
+        response.put("distances", distances);
+        return response;
+    }
+
+    private List<String> delete(Collection collection, JsonNode request) {
+        List<String> deleted = new ArrayList<>();
+        JsonNode ids = request.path("ids");
+        JsonNode where = request.path("where");
+        synchronized (collection) {
+            if (ids.isArray()) {
+                for (JsonNode id : ids) {
+                    if (collection.entries.remove(id.asText()) != null) {
+                        deleted.add(id.asText());
+                    }
+                }
+            } else {
+                Iterator<Map.Entry<String, Entry>> iterator = collection.entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, Entry> entry = iterator.next();
+                    if (matches(where, entry.getValue().metadata())) {
+                        deleted.add(entry.getKey());
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        writes.incrementAndGet();
+        return deleted;
+    }
+
+    // {"champ": valeur}, {"champ": {"$eq": valeur}}, {"$and": [...]}, {"$or": [...]}
+    private boolean matches(JsonNode where, Map<String, Object> metadata) {
+        if (where == null || !where.isObject() || where.isEmpty()) {
+            return true;
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = where.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            boolean matched = switch (field.getKey()) {
+                case "$and" -> allMatch(field.getValue(), metadata);
+                case "$or" -> anyMatch(field.getValue(), metadata);
+                default -> {
+                    JsonNode condition = field.getValue();
+                    JsonNode expected = condition.isObject() ? condition.path("$eq") : condition;
+                    Object actual = metadata == null ? null : metadata.get(field.getKey());
+                    yield actual != null && Objects.equals(String.valueOf(actual), expected.asText());
+                }
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean allMatch(JsonNode conditions, Map<String, Object> metadata) {
+        for (JsonNode condition : conditions) {
+            if (!matches(condition, metadata)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean anyMatch(JsonNode conditions, Map<String, Object> metadata) {
+        for (JsonNode condition : conditions) {
+            if (matches(condition, metadata)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static float[] toVector(JsonNode node) {
+        float[] vector = new float[node.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) node.get(i).asDouble();
+        }
+        return vector;
+    }
+
+    private static List<Float> toList(float[] vector) {
+        List<Float> list = new ArrayList<>(vector.length);
+        for (float v : vector) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float inverse = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inverse;
+            }
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private JsonNode read(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readAllBytes();
+            return bytes.length == 0 ? mapper.createObjectNode() : mapper.readTree(bytes);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, Object value) throws IOException {
+        byte[] bytes = mapper.writeValueAsString(value).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+}
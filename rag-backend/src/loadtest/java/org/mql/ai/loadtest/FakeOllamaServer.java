@@ -0,0 +1,201 @@
+package org.mql.ai.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remplaçant HTTP d'Ollama dans la JVM du test de charge : /api/embed (embeddings déterministes
+ * par hachage des mots) et /api/chat (réponse complète ou flux NDJSON au débit de tokens configuré).
+ * Les formats sont ceux attendus par les clients LangChain4j.
+ */
+final class FakeOllamaServer implements AutoCloseable {
+
+    private static final String[] VOCABULARY = (
+        "le cloud computing repose sur la virtualisation des ressources qui sont fournies à la demande "
+        + "selon un modèle de paiement à l'usage avec une élasticité adaptée à la charge").split(" ");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final int dimension;
+    private final LatencyDistribution embedLatency;
+    private final long embedNanosPerText;
+    private final LatencyDistribution firstTokenLatency;
+    private final double tokensPerSecond;
+    private final int answerTokens;
+
+    final AtomicLong embedCalls = new AtomicLong();
+    final AtomicLong embeddedTexts = new AtomicLong();
+    final AtomicLong chatCalls = new AtomicLong();
+    final AtomicLong streamedTokens = new AtomicLong();
+
+    FakeOllamaServer(int dimension, LatencyDistribution embedLatency, double embedMillisPerText,
+                     LatencyDistribution firstTokenLatency, double tokensPerSecond, int answerTokens) throws IOException {
+        this.dimension = dimension;
+        this.embedLatency = embedLatency;
+        this.embedNanosPerText = LatencyDistribution.millisToNanos(embedMillisPerText);
+        this.firstTokenLatency = firstTokenLatency;
+        this.tokensPerSecond = tokensPerSecond;
+        this.answerTokens = Math.max(1, answerTokens);
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // un thread par requête : la latence simulée ne doit pas dépendre d'un pool saturé
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-ollama");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/embed", this::embed);
+        server.createContext("/api/chat", this::chat);
+        server.createContext("/api/tags", exchange -> respond(exchange, Map.of("models", List.of())));
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // {"model": ..., "input": [...]} -> {"model": ..., "embeddings": [[...], ...]}
+    private void embed(HttpExchange exchange) throws IOException {
+        JsonNode request = read(exchange);
+        List<float[]> embeddings = new ArrayList<>();
+        for (JsonNode input : request.path("input")) {
+            embeddings.add(vector(input.asText()));
+        }
+        embedCalls.incrementAndGet();
+        embeddedTexts.addAndGet(embeddings.size());
+
+        LatencyDistribution.sleepNanos(embedLatency.sampleNanos() + embedNanosPerText * embeddings.size());
+        respond(exchange, Map.of("model", request.path("model").asText(), "embeddings", embeddings));
+    }
+
+    private void chat(HttpExchange exchange) throws IOException {
+        JsonNode request = read(exchange);
+        String model = request.path("model").asText();
+        int promptChars = 0;
+        for (JsonNode message : request.path("messages")) {
+            promptChars += message.path("content").asText().length();
+        }
+        int promptTokens = promptChars / 4;
+        chatCalls.incrementAndGet();
+
+        long tokenNanos = tokensPerSecond > 0 ? (long) (1_000_000_000L / tokensPerSecond) : 0;
+        firstTokenLatency.pause();
+
+        if (!request.path("stream").asBoolean(false)) {
+            LatencyDistribution.sleepNanos(tokenNanos * (answerTokens - 1));
+            StringBuilder answer = new StringBuilder();
+            for (int i = 0; i < answerTokens; i++) {
+                answer.append(token(i));
+            }
+            streamedTokens.addAndGet(answerTokens);
+            respond(exchange, chunk(model, answer.toString().trim(), true, promptTokens));
+            return;
+        }
+
+        // flux NDJSON : une ligne par token, la dernière avec done=true et les compteurs
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream body = exchange.getResponseBody()) {
+            long next = System.nanoTime();
+            for (int i = 0; i < answerTokens; i++) {
+                if (i > 0) {
+                    next += tokenNanos;
+                    LatencyDistribution.sleepNanos(next - System.nanoTime());
+                }
+                writeLine(body, chunk(model, token(i), false, promptTokens));
+                streamedTokens.incrementAndGet();
+            }
+            writeLine(body, chunk(model, "", true, promptTokens));
+        }
+    }
+
+    private Map<String, Object> chunk(String model, String content, boolean done, int promptTokens) {
+        Map<String, Object> chunk = new LinkedHashMap<>();
+        chunk.put("model", model);
+        chunk.put("created_at", Instant.now().toString());
+        chunk.put("message", Map.of("role", "assistant", "content", content));
+        chunk.put("done", done);
+        if (done) {
+            chunk.put("prompt_eval_count", promptTokens);
+            chunk.put("eval_count", answerTokens);
+        }
+        return chunk;
+    }
+
+    private static String token(int index) {
+        return VOCABULARY[index % VOCABULARY.length] + " ";
+    }
+
+    // sac de mots haché et normalisé : des textes proches ont des vecteurs proches
+    private float[] vector(String text) {
+        float[] vector = new float[dimension];
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() > 2) {
+                int hash = word.hashCode();
+                vector[Math.floorMod(hash, dimension)] += 1f;
+                vector[Math.floorMod(hash * 31 + 17, dimension)] += 0.5f;
+            }
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float inverse = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inverse;
+            }
+        } else {
+            vector[0] = 1f;
+        }
+        return vector;
+    }
+
+    private JsonNode read(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            return mapper.readTree(body);
+        }
+    }
+
+    private void writeLine(OutputStream body, Object value) throws IOException {
+        body.write(mapper.writeValueAsBytes(value));
+        body.write('\n');
+        body.flush();
+    }
+
+    private void respond(HttpExchange exchange, Object value) throws IOException {
+        byte[] bytes = mapper.writeValueAsString(value).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.mql.ai.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latence simulée d'un service externe, décrite par une propriété système :
+ * "fixed:20", "uniform:10:50" (bornes en ms) ou "lognormal:40:0.5" (médiane en ms,
+ * écart-type du logarithme : queue de distribution réaliste pour Ollama et Chroma).
+ */
+record LatencyDistribution(String kind, double first, double second) {
+
+    static LatencyDistribution fromProperty(String name, String defaultSpec) {
+        return parse(System.getProperty(name, defaultSpec));
+    }
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+        try {
+            return switch (parts[0]) {
+                case "fixed" -> new LatencyDistribution("fixed", Double.parseDouble(parts[1]), 0);
+                case "uniform", "lognormal" ->
+                    new LatencyDistribution(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default -> throw new IllegalArgumentException("Distribution inconnue: " + spec);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException(
+                "Distribution invalide: " + spec + " (fixed:ms, uniform:min:max ou lognormal:médiane:sigma)", e);
+        }
+    }
+
+    long sampleNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = switch (kind) {
+            case "uniform" -> first + random.nextDouble() * Math.max(0, second - first);
+            case "lognormal" -> first * Math.exp(second * random.nextGaussian());
+            default -> first;
+        };
+        return (long) (Math.max(0, millis) * 1_000_000);
+    }
+
+    void pause() {
+        sleepNanos(sampleNanos());
+    }
+
+    static void sleepNanos(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case "fixed" -> String.format(Locale.ROOT, "fixe %.0f ms", first);
+            case "uniform" -> String.format(Locale.ROOT, "uniforme %.0f-%.0f ms", first, second);
+            default -> String.format(Locale.ROOT, "log-normale médiane %.0f ms, sigma %.2f", first, second);
+        };
+    }
+
+    static long millisToNanos(double millis) {
+        return (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,60 @@
+package org.mql.ai.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latences d'une opération du test de charge (toutes les mesures sont conservées :
+ * percentiles exacts, le volume d'un test reste de quelques milliers de requêtes).
+ */
+final class LatencyRecorder {
+
+    private final String name;
+    private long[] samples = new long[1024];
+    private int count;
+    private final AtomicLong errors = new AtomicLong();
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    void recordError() {
+        errors.incrementAndGet();
+    }
+
+    static String header() {
+        return String.format(Locale.ROOT, "%-18s %8s %8s %10s %9s %9s %9s %9s",
+            "opération", "requêtes", "erreurs", "débit/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+    }
+
+    synchronized String summary(long elapsedNanos) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        double seconds = elapsedNanos / 1e9;
+        return String.format(Locale.ROOT, "%-18s %8d %8d %10.2f %9.1f %9.1f %9.1f %9.1f",
+            name, count, errors.get(), seconds > 0 ? count / seconds : 0.0,
+            millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.95)),
+            millis(percentile(sorted, 0.99)), millis(count == 0 ? 0 : sorted[count - 1]));
+    }
+
+    // rang le plus proche : la valeur sous laquelle se trouvent p % des mesures
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,319 @@
+package org.mql.ai.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mql.ai.CourseLlmApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test de charge de bout en bout : démarre Ollama et ChromaDB simulés dans la JVM,
+ * l'application Spring sur un port libre, puis envoie /api/chat/ask et /api/documents/upload
+ * à concurrence fixe et affiche débit et latences p50/p95/p99.
+ *
+ * Paramètres (propriétés système, voir le profil Maven "loadtest") :
+ *   loadtest.concurrency, loadtest.requests, loadtest.warmup-requests, loadtest.upload-ratio,
+ *   loadtest.ollama.embed-latency, loadtest.ollama.embed-ms-per-text, loadtest.ollama.first-token-latency,
+ *   loadtest.ollama.tokens-per-second, loadtest.ollama.answer-tokens, loadtest.ollama.dimension,
+ *   loadtest.chroma.latency, loadtest.courses.
+ * Toute autre propriété (ex. -Drag.llm.max-concurrent=8) est transmise à l'application.
+ */
+public final class LoadTestRunner {
+
+    private static final List<String> TOPICS = List.of(
+        "le cloud computing", "la virtualisation", "l'élasticité", "le modèle IaaS", "le modèle PaaS",
+        "le modèle SaaS", "le cloud hybride", "le cloud public", "les conteneurs", "la facturation à l'usage");
+
+    private static final List<String> TEMPLATES = List.of(
+        "Qu'est-ce que %s ?", "Quels sont les avantages de %s ?",
+        "Quelles sont les limites de %s ?", "Donne un exemple concret de %s.");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
+    private final String baseUrl;
+    private final byte[] uploadPdf;
+    private final double uploadRatio;
+    private final AtomicInteger uploadCounter = new AtomicInteger();
+
+    private final LatencyRecorder ask = new LatencyRecorder("ask");
+    private final LatencyRecorder uploadAccepted = new LatencyRecorder("upload (202)");
+    private final LatencyRecorder uploadIndexed = new LatencyRecorder("upload (indexé)");
+    private final AtomicLong cached = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong overloaded = new AtomicLong();
+
+    private LoadTestRunner(String baseUrl, byte[] uploadPdf, double uploadRatio) {
+        this.baseUrl = baseUrl;
+        this.uploadPdf = uploadPdf;
+        this.uploadRatio = uploadRatio;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int requests = Integer.getInteger("loadtest.requests", 200);
+        int warmupRequests = Integer.getInteger("loadtest.warmup-requests", 20);
+        double uploadRatio = Double.parseDouble(System.getProperty("loadtest.upload-ratio", "0.05"));
+        Path courses = Paths.get(System.getProperty("loadtest.courses", "src/main/resources/courses"));
+
+        LatencyDistribution embedLatency = LatencyDistribution.fromProperty("loadtest.ollama.embed-latency", "lognormal:15:0.4");
+        LatencyDistribution firstTokenLatency = LatencyDistribution.fromProperty("loadtest.ollama.first-token-latency", "lognormal:300:0.5");
+        LatencyDistribution chromaLatency = LatencyDistribution.fromProperty("loadtest.chroma.latency", "lognormal:5:0.5");
+        double tokensPerSecond = Double.parseDouble(System.getProperty("loadtest.ollama.tokens-per-second", "60"));
+        int answerTokens = Integer.getInteger("loadtest.ollama.answer-tokens", 80);
+
+        try (FakeOllamaServer ollama = new FakeOllamaServer(
+                Integer.getInteger("loadtest.ollama.dimension", 768), embedLatency,
+                Double.parseDouble(System.getProperty("loadtest.ollama.embed-ms-per-text", "1")),
+                firstTokenLatency, tokensPerSecond, answerTokens);
+             FakeChromaServer chroma = new FakeChromaServer(chromaLatency)) {
+
+            System.out.printf(Locale.ROOT, "Ollama simulé sur %s (embeddings %s, premier token %s, %.0f tokens/s, %d tokens)%n",
+                ollama.baseUrl(), embedLatency, firstTokenLatency, tokensPerSecond, answerTokens);
+            System.out.printf(Locale.ROOT, "ChromaDB simulé sur %s (%s)%n", chroma.baseUrl(), chromaLatency);
+
+            List<Path> pdfs = coursePdfs(courses);
+            Path workDirectory = Files.createTempDirectory("rag-loadtest");
+            Path coursesDirectory = Files.createDirectories(workDirectory.resolve("courses"));
+            for (Path pdf : pdfs) {
+                Files.copy(pdf, coursesDirectory.resolve(pdf.getFileName()));
+            }
+
+            // l'indexation des cours se fait en arrière-plan au démarrage, via les services simulés
+            long startupBegin = System.nanoTime();
+            ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) SpringApplication.run(
+                CourseLlmApplication.class, applicationArguments(ollama, chroma, workDirectory, coursesDirectory));
+            System.out.printf(Locale.ROOT, "Application démarrée en %.1f s%n", (System.nanoTime() - startupBegin) / 1e9);
+
+            try {
+                awaitReadiness(context.getWebServer().getPort(), Integer.getInteger("loadtest.startup-timeout-seconds", 600));
+                System.out.printf(Locale.ROOT, "Index prêt en %.1f s (%d PDFs indexés, %d chunks)%n",
+                    (System.nanoTime() - startupBegin) / 1e9, pdfs.size(), chroma.size());
+
+                LoadTestRunner runner = new LoadTestRunner(
+                    "http://localhost:" + context.getWebServer().getPort() + "/api",
+                    Files.readAllBytes(pdfs.get(0)), uploadRatio);
+
+                if (warmupRequests > 0) {
+                    runner.run(Math.min(concurrency, warmupRequests), warmupRequests);
+                    runner = new LoadTestRunner(runner.baseUrl, runner.uploadPdf, uploadRatio);
+                }
+
+                long embedCalls = ollama.embedCalls.get();
+                long embeddedTexts = ollama.embeddedTexts.get();
+                long chatCalls = ollama.chatCalls.get();
+                long chromaQueries = chroma.queries.get();
+
+                long elapsed = runner.run(concurrency, requests);
+                runner.report(concurrency, elapsed);
+
+                System.out.printf(Locale.ROOT, "Services simulés: Ollama %d appels embed (%d textes), %d appels chat ; ChromaDB %d requêtes%n",
+                    ollama.embedCalls.get() - embedCalls, ollama.embeddedTexts.get() - embeddedTexts,
+                    ollama.chatCalls.get() - chatCalls, chroma.queries.get() - chromaQueries);
+            } finally {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    // propriétés système "rag.*", "spring.*"... : déjà lues par Spring, prioritaires sur rag.properties
+    private static String[] applicationArguments(FakeOllamaServer ollama, FakeChromaServer chroma,
+                                                 Path workDirectory, Path coursesDirectory) {
+        Map<String, String> overrides = new LinkedHashMap<>();
+        overrides.put("server.port", "0");
+        overrides.put("ollama.base.url", ollama.baseUrl());
+        overrides.put("chroma.db.url", chroma.baseUrl());
+        overrides.put("rag.embedding.provider", "ollama");
+        overrides.put("rag.courses-directory", coursesDirectory.toString());
+        overrides.put("rag.manifest.file", workDirectory.resolve("ingestion-manifest.log").toString());
+        overrides.put("rag.manifest.legacy-file", workDirectory.resolve("ingestion-manifest.json").toString());
+        overrides.put("rag.cache.chunk-embeddings.file", workDirectory.resolve("embedding-cache.bin").toString());
+        overrides.put("rag.upload.chunked.directory", workDirectory.resolve("uploads").toString());
+        overrides.put("rag.vector-store.hnsw.file", workDirectory.resolve("hnsw-index.bin").toString());
+        overrides.put("rag.vector-store.hnsw.vectors-directory", workDirectory.toString());
+        overrides.put("rag.retrieval.hybrid.index-file", workDirectory.resolve("lexical-index.bin").toString());
+        overrides.put("logging.level.root", System.getProperty("loadtest.log-level", "WARN"));
+        overrides.put("logging.level.org.mql.ai", System.getProperty("loadtest.log-level", "WARN"));
+        return overrides.entrySet().stream()
+            .filter(entry -> System.getProperty(entry.getKey()) == null)
+            .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+            .toArray(String[]::new);
+    }
+
+    // la sonde readiness passe à 200 quand l'indexation au démarrage est terminée
+    private static void awaitReadiness(int port, int timeoutSeconds) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + port + "/actuator/health/readiness")).GET().build();
+        long deadline = System.nanoTime() + timeoutSeconds * 1_000_000_000L;
+        while (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Index non prêt après " + timeoutSeconds + " s");
+            }
+            Thread.sleep(200);
+        }
+    }
+
+    private static List<Path> coursePdfs(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> pdfs = files.filter(path -> path.toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+                .sorted()
+                .collect(Collectors.toList());
+            if (pdfs.isEmpty()) {
+                throw new IllegalStateException("Aucun PDF dans " + directory.toAbsolutePath());
+            }
+            return pdfs;
+        }
+    }
+
+    // "requests" requêtes réparties sur "concurrency" clients qui enchaînent sans pause
+    private long run(int concurrency, int requests) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(requests);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long begin = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(clients.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        if (ThreadLocalRandom.current().nextDouble() < uploadRatio) {
+                            upload();
+                        } else {
+                            ask();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private void ask() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String question = String.format(TEMPLATES.get(random.nextInt(TEMPLATES.size())),
+            TOPICS.get(random.nextInt(TOPICS.size())));
+        long begin = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/chat/ask"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(
+                        Map.of("question", question, "include_sources", true, "language", "fr"))))
+                    .build(),
+                HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - begin;
+
+            if (response.statusCode() == 503) {
+                overloaded.incrementAndGet();
+                ask.recordError();
+                return;
+            }
+            JsonNode body = mapper.readTree(response.body());
+            if (response.statusCode() != 200 || !body.path("success").asBoolean(true)) {
+                ask.recordError();
+                return;
+            }
+            ask.record(elapsed);
+            if (body.path("cached").asBoolean()) {
+                cached.incrementAndGet();
+            }
+            if (body.path("coalesced").asBoolean()) {
+                coalesced.incrementAndGet();
+            }
+        } catch (IOException e) {
+            ask.recordError();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // nom unique à chaque envoi : chaque upload déclenche une vraie indexation
+    private void upload() {
+        String fileName = "loadtest-" + uploadCounter.incrementAndGet() + "-" + UUID.randomUUID() + ".pdf";
+        String boundary = "----loadtest" + UUID.randomUUID();
+        byte[] head = ("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+            + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+        long begin = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/documents/upload"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArrays(List.of(head, uploadPdf, tail)))
+                    .build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 202) {
+                uploadAccepted.recordError();
+                return;
+            }
+            uploadAccepted.record(System.nanoTime() - begin);
+
+            // latence perçue par l'utilisateur : jusqu'à la fin de l'indexation du job
+            String jobId = mapper.readTree(response.body()).path("id").asText();
+            while (true) {
+                Thread.sleep(20);
+                JsonNode job = mapper.readTree(client.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/documents/jobs/" + jobId)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+                String state = job.path("state").asText();
+                if ("COMPLETED".equals(state)) {
+                    uploadIndexed.record(System.nanoTime() - begin);
+                    return;
+                }
+                if ("FAILED".equals(state)) {
+                    uploadIndexed.recordError();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            uploadAccepted.recordError();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(int concurrency, long elapsedNanos) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "=== Test de charge : %d clients, %.1f s ===%n", concurrency, elapsedNanos / 1e9);
+        System.out.println(LatencyRecorder.header());
+        System.out.println(ask.summary(elapsedNanos));
+        System.out.println(uploadAccepted.summary(elapsedNanos));
+        System.out.println(uploadIndexed.summary(elapsedNanos));
+        System.out.printf(Locale.ROOT, "Réponses ask: %d depuis le cache sémantique, %d regroupées, %d rejetées (503)%n",
+            cached.get(), coalesced.get(), overloaded.get());
+    }
+}
@@ -32,6 +32,7 @@ public class CourseLlmApplication {
             
              API Endpoints:
                Ask:      POST http://localhost:{}/api/chat/ask
+               Stream:   POST http://localhost:{}/api/chat/stream
                Upload:   POST http://localhost:{}/api/documents/upload
                Index:    POST http://localhost:{}/api/documents/index-all
             
@@ -48,6 +49,7 @@ public class CourseLlmApplication {
             port,
             port,
             port,
+            port,
             env.getProperty("ollama.base-url"),
             env.getProperty("chroma.base-url"),
             env.getProperty("rag.courses-directory")
@@ -0,0 +1,10 @@
+package org.mql.ai.business;
+
+import org.mql.ai.models.ChatResponse;
+
+// reçoit les tokens générés puis la réponse finale (sources + timings)
+public interface AnswerStreamListener {
+	void onToken(String token);
+	void onComplete(ChatResponse response);
+	void onError(String errorMessage);
+}
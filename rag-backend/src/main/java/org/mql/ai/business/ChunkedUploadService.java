@@ -0,0 +1,15 @@
+package org.mql.ai.business;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+import org.mql.ai.models.IngestionJob;
+import org.mql.ai.models.UploadSession;
+
+public interface ChunkedUploadService {
+	UploadSession start(String fileName, long totalSize);
+	Optional<UploadSession> getSession(String id);
+	UploadSession appendChunk(String id, long offset, InputStream content);
+	IngestionJob complete(String id);
+	boolean abort(String id);
+}
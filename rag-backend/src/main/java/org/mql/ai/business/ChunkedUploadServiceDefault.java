@@ -0,0 +1,277 @@
+package org.mql.ai.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.mql.ai.exceptions.PDFLoadException;
+import org.mql.ai.exceptions.UploadRejectedException;
+import org.mql.ai.exceptions.UploadRejectedException.Reason;
+import org.mql.ai.models.IngestionJob;
+import org.mql.ai.models.UploadSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Uploads reprenables au-delà de la limite multipart : le client envoie le fichier par morceaux
+ * (corps binaire brut), chacun ajouté directement au fichier partiel via un FileChannel.
+ * Les sessions survivent à un redémarrage (métadonnées JSON à côté du fichier partiel).
+ * Les sessions inactives depuis expiry-hours sont purgées toutes les heures.
+ */
+@Service
+public class ChunkedUploadServiceDefault implements ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadServiceDefault.class);
+
+    private static final long TRANSFER_SIZE = 1024 * 1024;
+
+    private final IngestionJobService ingestionJobService;
+    private final PDFLoaderService pdfLoaderService;
+    private final ObjectMapper objectMapper;
+    private final Path uploadDirectory;
+    private final long maxSize;
+    private final long expiryHours;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService purgeScheduler;
+
+    public ChunkedUploadServiceDefault(IngestionJobService ingestionJobService,
+                                       PDFLoaderService pdfLoaderService,
+                                       ObjectMapper objectMapper,
+                                       @Value("${rag.upload.chunked.directory:data/uploads}") String uploadDirectory,
+                                       @Value("${rag.upload.chunked.max-size-mb:2048}") long maxSizeMb,
+                                       @Value("${rag.upload.chunked.expiry-hours:24}") long expiryHours) {
+        this.ingestionJobService = ingestionJobService;
+        this.pdfLoaderService = pdfLoaderService;
+        this.objectMapper = objectMapper;
+        this.uploadDirectory = Paths.get(uploadDirectory);
+        this.maxSize = maxSizeMb * 1024 * 1024;
+        this.expiryHours = expiryHours;
+        load();
+
+        purgeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purgeScheduler.scheduleWithFixedDelay(this::purgeExpired, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purgeScheduler.shutdownNow();
+    }
+
+    @Override
+    public UploadSession start(String fileName, long totalSize) {
+        if (fileName == null || !fileName.toLowerCase().endsWith(".pdf")) {
+            throw new UploadRejectedException(Reason.INVALID, "Seuls les fichiers PDF sont acceptés");
+        }
+        if (totalSize <= 0) {
+            throw new UploadRejectedException(Reason.INVALID, "Taille d'upload invalide: " + totalSize + " octets");
+        }
+        if (totalSize > maxSize) {
+            throw new UploadRejectedException(Reason.TOO_LARGE,
+                "Upload trop volumineux: " + totalSize + " octets (max " + maxSize + ")");
+        }
+        // conflits de nom détectés avant l'envoi du contenu, pas à la finalisation
+        pdfLoaderService.requireUploadable(fileName);
+        if (sessions.values().stream().anyMatch(session -> session.getFileName().equals(fileName))) {
+            throw new UploadRejectedException(Reason.CONFLICT, "Un upload de '" + fileName + "' est déjà en cours");
+        }
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), fileName, totalSize);
+        try {
+            Files.createDirectories(uploadDirectory);
+            Files.createFile(partFile(session.getId()));
+        } catch (IOException e) {
+            throw new PDFLoadException("Impossible de créer l'upload de " + fileName, e);
+        }
+        save(session);
+        sessions.put(session.getId(), session);
+
+        logger.info(" Upload découpé {} démarré: {} ({} octets)", session.getId(), session.getFileName(), totalSize);
+        return session;
+    }
+
+    @Override
+    public Optional<UploadSession> getSession(String id) {
+        return Optional.ofNullable(sessions.get(id));
+    }
+
+    // le morceau doit commencer exactement à receivedBytes, sinon le client doit se resynchroniser
+    @Override
+    public UploadSession appendChunk(String id, long offset, InputStream content) {
+        UploadSession session = require(id);
+
+        synchronized (session) {
+            if (offset != session.getReceivedBytes()) {
+                throw new IllegalStateException("Offset attendu " + session.getReceivedBytes() + ", reçu " + offset);
+            }
+
+            long position = offset;
+            try (FileChannel channel = FileChannel.open(partFile(id), StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(content)) {
+                long transferred;
+                while ((transferred = channel.transferFrom(source, position, TRANSFER_SIZE)) > 0) {
+                    position += transferred;
+                    if (position > session.getTotalSize()) {
+                        channel.truncate(session.getReceivedBytes());
+                        throw new UploadRejectedException(Reason.TOO_LARGE, "Upload " + id
+                            + " dépasse la taille annoncée (" + session.getTotalSize() + " octets)");
+                    }
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                // les octets reçus avant la coupure sont conservés, le client reprend à receivedBytes
+                logger.warn(" Morceau interrompu pour l'upload {}: {}", id, e.getMessage());
+                position = sizeOf(partFile(id));
+            }
+
+            session.setReceivedBytes(position);
+            session.setLastActivity(LocalDateTime.now());
+            save(session);
+            logger.debug(" Upload {}: {}/{} octets", id, position, session.getTotalSize());
+            return session;
+        }
+    }
+
+    @Override
+    public IngestionJob complete(String id) {
+        UploadSession session = require(id);
+
+        synchronized (session) {
+            if (!session.isComplete()) {
+                throw new IllegalStateException("Upload incomplet: " + session.getReceivedBytes()
+                    + "/" + session.getTotalSize() + " octets");
+            }
+            IngestionJob job;
+            try {
+                job = ingestionJobService.submitUpload(partFile(id), session.getFileName());
+            } catch (UploadRejectedException e) {
+                // nom pris entre-temps : la session ne pourra jamais aboutir
+                sessions.remove(id);
+                deleteFiles(id);
+                throw e;
+            }
+            sessions.remove(id);
+            deleteFiles(id);
+            logger.info(" Upload découpé {} terminé: {} (job {})", id, session.getFileName(), job.getId());
+            return job;
+        }
+    }
+
+    @Override
+    public boolean abort(String id) {
+        UploadSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            deleteFiles(id);
+        }
+        logger.info(" Upload découpé {} annulé ({})", id, session.getFileName());
+        return true;
+    }
+
+    private UploadSession require(String id) {
+        UploadSession session = sessions.get(id);
+        if (session == null) {
+            throw new UploadRejectedException(Reason.NOT_FOUND, "Upload inconnu: " + id);
+        }
+        return session;
+    }
+
+    private void purgeExpired() {
+        try {
+            LocalDateTime limit = LocalDateTime.now().minusHours(expiryHours);
+            sessions.values().stream()
+                .filter(session -> session.getLastActivity().isBefore(limit))
+                .map(UploadSession::getId)
+                .toList()
+                .forEach(this::abort);
+        } catch (RuntimeException e) {
+            logger.error(" Erreur lors de la purge des uploads expirés", e);
+        }
+    }
+
+    // sessions en cours avant un redémarrage ; la taille réelle du fichier partiel fait foi
+    private void load() {
+        if (!Files.isDirectory(uploadDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(uploadDirectory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(".json")).forEach(path -> {
+                try {
+                    UploadSession session = objectMapper.readValue(path.toFile(), UploadSession.class);
+                    Path part = partFile(session.getId());
+                    if (!Files.exists(part)) {
+                        Files.deleteIfExists(path);
+                        return;
+                    }
+                    session.setReceivedBytes(Math.min(Files.size(part), session.getTotalSize()));
+                    sessions.put(session.getId(), session);
+                } catch (IOException e) {
+                    logger.warn(" Session d'upload illisible {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.error(" Impossible de lister {}", uploadDirectory, e);
+        }
+        if (!sessions.isEmpty()) {
+            logger.info(" {} uploads découpés repris depuis {}", sessions.size(), uploadDirectory);
+        }
+    }
+
+    private void save(UploadSession session) {
+        try {
+            objectMapper.writeValue(sessionFile(session.getId()).toFile(), session);
+        } catch (IOException e) {
+            logger.warn(" Session d'upload {} non persistée: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void deleteFiles(String id) {
+        try {
+            Files.deleteIfExists(partFile(id));
+            Files.deleteIfExists(sessionFile(id));
+        } catch (IOException e) {
+            logger.warn(" Nettoyage de l'upload {} impossible: {}", id, e.getMessage());
+        }
+    }
+
+    private Path partFile(String id) {
+        return uploadDirectory.resolve(id + ".part");
+    }
+
+    private Path sessionFile(String id) {
+        return uploadDirectory.resolve(id + ".json");
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Construction du contexte du prompt : les chunks consécutifs (chunk_index) d'un même fichier
+ * sont fusionnés sans répéter leur chevauchement, puis les passages sont retenus par score
+ * décroissant tant qu'ils tiennent dans le budget de tokens (estimé en caractères / token).
+ */
+@Component
+public class ContextAssembler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContextAssembler.class);
+
+    static final String SEPARATOR = "\n\n---\n\n";
+
+    // en dessous, une égalité suffixe/préfixe est probablement fortuite
+    private static final int MIN_OVERLAP = 8;
+
+    private final int maxTokens;
+    private final double charsPerToken;
+    private final int maxOverlap;
+
+    private final AtomicLong assembled = new AtomicLong();
+    private final AtomicLong mergedChunks = new AtomicLong();
+    private final AtomicLong droppedPassages = new AtomicLong();
+    private final AtomicLong tokensUsed = new AtomicLong();
+    private final AtomicLong tokensSaved = new AtomicLong();
+
+    public record Context(String text, int chunks, int passages, int tokens, int tokensSaved) {}
+
+    // passage = suite de chunks consécutifs d'un même fichier
+    private record Passage(String text, double score, int chunks) {}
+
+    public ContextAssembler(
+            @Value("${rag.context.max-tokens:1500}") int maxTokens,
+            @Value("${rag.context.chars-per-token:4}") double charsPerToken,
+            @Value("${rag.chunk-overlap:50}") int chunkOverlap) {
+        this.maxTokens = maxTokens;
+        this.charsPerToken = charsPerToken > 0 ? charsPerToken : 4;
+        // le découpage récursif recolle des phrases entières : le chevauchement réel peut dépasser la consigne
+        this.maxOverlap = Math.max(MIN_OVERLAP, chunkOverlap * 2);
+
+        logger.info(" Contexte du prompt: budget={} tokens ({} caractères/token)",
+            maxTokens > 0 ? maxTokens : "illimité", this.charsPerToken);
+    }
+
+    public Context assemble(List<EmbeddingMatch<TextSegment>> matches) {
+        int naiveTokens = estimateTokens(matches.stream()
+            .mapToInt(match -> match.embedded().text().length())
+            .sum() + SEPARATOR.length() * Math.max(0, matches.size() - 1));
+
+        List<Passage> passages = mergeAdjacent(matches);
+        passages.sort(Comparator.comparingDouble(Passage::score).reversed());
+
+        StringBuilder context = new StringBuilder();
+        int used = 0;
+        int kept = 0;
+        int chunks = 0;
+        for (Passage passage : passages) {
+            int separatorTokens = kept == 0 ? 0 : estimateTokens(SEPARATOR.length());
+            int passageTokens = estimateTokens(passage.text().length());
+
+            String text = passage.text();
+            if (maxTokens > 0 && used + separatorTokens + passageTokens > maxTokens) {
+                if (kept > 0) {
+                    // un passage moins bien classé mais plus court peut encore tenir
+                    continue;
+                }
+                // le meilleur passage dépasse à lui seul le budget : tronqué plutôt qu'omis
+                text = text.substring(0, Math.min(text.length(), (int) (maxTokens * charsPerToken)));
+                passageTokens = estimateTokens(text.length());
+            }
+
+            if (kept > 0) {
+                context.append(SEPARATOR);
+            }
+            context.append(text);
+            used += separatorTokens + passageTokens;
+            kept++;
+            chunks += passage.chunks();
+        }
+
+        int saved = Math.max(0, naiveTokens - used);
+        assembled.incrementAndGet();
+        mergedChunks.addAndGet(matches.size() - passages.size());
+        droppedPassages.addAndGet(passages.size() - kept);
+        tokensUsed.addAndGet(used);
+        tokensSaved.addAndGet(saved);
+
+        logger.debug(" Contexte: {} chunks -> {} passages retenus sur {}, ~{} tokens ({} économisés)",
+            matches.size(), kept, passages.size(), used, saved);
+        return new Context(context.toString(), chunks, kept, used, saved);
+    }
+
+    public Map<String, Object> getStats() {
+        long count = assembled.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxTokens", maxTokens);
+        stats.put("assembled", count);
+        stats.put("mergedChunks", mergedChunks.get());
+        stats.put("droppedPassages", droppedPassages.get());
+        stats.put("tokensUsed", tokensUsed.get());
+        stats.put("tokensSaved", tokensSaved.get());
+        stats.put("averageTokens", count == 0 ? 0 : tokensUsed.get() / count);
+        return stats;
+    }
+
+    int estimateTokens(int chars) {
+        return (int) Math.ceil(chars / charsPerToken);
+    }
+
+    // regroupe par fichier, trie par chunk_index et fusionne les suites consécutives
+    private List<Passage> mergeAdjacent(List<EmbeddingMatch<TextSegment>> matches) {
+        Map<String, List<EmbeddingMatch<TextSegment>>> byFile = new LinkedHashMap<>();
+        List<Passage> passages = new ArrayList<>();
+
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            String fileName = match.embedded().metadata().getString("file_name");
+            if (fileName == null || chunkIndex(match) < 0) {
+                passages.add(new Passage(match.embedded().text(), match.score(), 1));
+            } else {
+                byFile.computeIfAbsent(fileName, key -> new ArrayList<>()).add(match);
+            }
+        }
+
+        for (List<EmbeddingMatch<TextSegment>> fileMatches : byFile.values()) {
+            fileMatches.sort(Comparator.comparingInt(ContextAssembler::chunkIndex));
+
+            StringBuilder text = null;
+            double score = 0;
+            int count = 0;
+            int previousIndex = Integer.MIN_VALUE;
+            for (EmbeddingMatch<TextSegment> match : fileMatches) {
+                int index = chunkIndex(match);
+                String chunk = match.embedded().text();
+                if (index == previousIndex) {
+                    // même chunk remonté deux fois (vecteur + lexical)
+                    score = Math.max(score, match.score());
+                    continue;
+                }
+                if (text != null && index == previousIndex + 1) {
+                    int overlap = overlap(text, chunk);
+                    if (overlap == 0) {
+                        text.append(' ');
+                    }
+                    text.append(chunk, overlap, chunk.length());
+                    score = Math.max(score, match.score());
+                    count++;
+                } else {
+                    if (text != null) {
+                        passages.add(new Passage(text.toString(), score, count));
+                    }
+                    text = new StringBuilder(chunk);
+                    score = match.score();
+                    count = 1;
+                }
+                previousIndex = index;
+            }
+            if (text != null) {
+                passages.add(new Passage(text.toString(), score, count));
+            }
+        }
+        return passages;
+    }
+
+    // longueur du plus long suffixe du texte courant qui est aussi un préfixe du chunk suivant
+    int overlap(CharSequence previous, String next) {
+        String tail = previous.subSequence(Math.max(0, previous.length() - maxOverlap), previous.length()).toString();
+        int max = Math.min(tail.length(), next.length() - 1);
+        for (int length = max; length >= MIN_OVERLAP; length--) {
+            if (tail.regionMatches(tail.length() - length, next, 0, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private static int chunkIndex(EmbeddingMatch<TextSegment> match) {
+        String value = match.embedded().metadata().getString("chunk_index");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
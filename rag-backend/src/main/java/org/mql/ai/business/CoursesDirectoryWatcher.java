@@ -0,0 +1,215 @@
+package org.mql.ai.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Surveille rag.courses-directory et réindexe uniquement les PDFs ajoutés, modifiés ou supprimés.
+ * Les rafales d'événements (copie d'un gros fichier) sont regroupées : un fichier n'est traité
+ * qu'après debounce-ms sans nouvel événement et une taille stable.
+ */
+@Component
+public class CoursesDirectoryWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoursesDirectoryWatcher.class);
+
+    private final PDFLoaderService pdfLoaderService;
+    private final Path coursesPath;
+    private final boolean enabled;
+    private final long debounceMs;
+
+    private final Map<String, PendingChange> pending = new ConcurrentHashMap<>();
+    private volatile boolean resyncRequested;
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private ScheduledExecutorService scheduler;
+
+    public CoursesDirectoryWatcher(PDFLoaderService pdfLoaderService,
+                                   @Value("${rag.courses-directory}") String coursesDirectory,
+                                   @Value("${rag.watcher.enabled:true}") boolean enabled,
+                                   @Value("${rag.watcher.debounce-ms:2000}") long debounceMs) {
+        this.pdfLoaderService = pdfLoaderService;
+        this.coursesPath = Paths.get(coursesDirectory);
+        this.enabled = enabled;
+        this.debounceMs = debounceMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info(" Surveillance du répertoire des cours désactivée");
+            return;
+        }
+
+        try {
+            Files.createDirectories(coursesPath);
+            watchService = FileSystems.getDefault().newWatchService();
+            coursesPath.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.error(" Impossible de surveiller {}", coursesPath, e);
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "courses-reindex");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, debounceMs / 2);
+        scheduler.scheduleWithFixedDelay(this::flush, period, period, TimeUnit.MILLISECONDS);
+
+        watchThread = new Thread(this::watch, "courses-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        logger.info(" Surveillance de {} (debounce {}ms)", coursesPath, debounceMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug(" Fermeture du WatchService: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // événements perdus : on compare le répertoire à l'index
+                    resyncRequested = true;
+                    continue;
+                }
+                Path fileName = (Path) event.context();
+                if (fileName.toString().toLowerCase().endsWith(".pdf")) {
+                    pending.put(fileName.toString(), new PendingChange(System.currentTimeMillis(), sizeOf(fileName)));
+                }
+            }
+
+            if (!key.reset()) {
+                logger.warn(" Le répertoire {} n'est plus surveillé", coursesPath);
+                return;
+            }
+        }
+    }
+
+    // traite les fichiers sans événement depuis debounce-ms
+    private void flush() {
+        try {
+            if (resyncRequested) {
+                resyncRequested = false;
+                resync();
+            }
+
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, PendingChange> entry : new ArrayList<>(pending.entrySet())) {
+                String fileName = entry.getKey();
+                PendingChange change = entry.getValue();
+                if (now - change.lastEvent < debounceMs) {
+                    continue;
+                }
+
+                long size = sizeOf(Paths.get(fileName));
+                if (size != change.size) {
+                    // encore en cours d'écriture
+                    pending.replace(fileName, change, new PendingChange(now, size));
+                    continue;
+                }
+                if (!pending.remove(fileName, change)) {
+                    continue;
+                }
+                if (!apply(fileName)) {
+                    // fichier en cours d'indexation : nouvel essai après un autre délai, sauf si
+                    // un événement plus récent l'a déjà remis en attente
+                    pending.putIfAbsent(fileName, new PendingChange(System.currentTimeMillis(), size));
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error(" Erreur lors de la réindexation incrémentale", e);
+        }
+    }
+
+    // false si le fichier est occupé et que le changement doit être rejoué
+    private boolean apply(String fileName) {
+        Path pdfPath = coursesPath.resolve(fileName);
+        if (Files.exists(pdfPath)) {
+            return pdfLoaderService.refreshPDF(pdfPath);
+        }
+        return pdfLoaderService.removePDF(fileName);
+    }
+
+    private void resync() {
+        logger.info(" Resynchronisation du répertoire {}", coursesPath);
+        Set<String> onDisk;
+        try (Stream<Path> files = Files.list(coursesPath)) {
+            onDisk = files
+                .map(path -> path.getFileName().toString())
+                .filter(name -> name.toLowerCase().endsWith(".pdf"))
+                .collect(Collectors.toSet());
+        } catch (IOException e) {
+            logger.error(" Impossible de lister {}", coursesPath, e);
+            return;
+        }
+
+        Set<String> affected = new HashSet<>(onDisk);
+        affected.addAll(pdfLoaderService.getIndexedFileNames());
+        long now = System.currentTimeMillis();
+        for (String fileName : affected) {
+            pending.putIfAbsent(fileName, new PendingChange(now - debounceMs, sizeOf(Paths.get(fileName))));
+        }
+    }
+
+    // -1 si le fichier n'existe pas (supprimé)
+    private long sizeOf(Path fileName) {
+        try {
+            return Files.size(coursesPath.resolve(fileName));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static final class PendingChange {
+        private final long lastEvent;
+        private final long size;
+
+        private PendingChange(long lastEvent, long size) {
+            this.lastEvent = lastEvent;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.mql.ai.business;
+
+import java.util.Collection;
+import java.util.List;
+
+// publié quand les vecteurs d'un document sont (ré)indexés ou supprimés
+public class DocumentIndexChangedEvent {
+
+	private final String fileName;
+	private final Collection<String> chunkIds;
+
+	public DocumentIndexChangedEvent(String fileName) {
+		this(fileName, List.of());
+	}
+
+	public DocumentIndexChangedEvent(String fileName, Collection<String> chunkIds) {
+		this.fileName = fileName;
+		this.chunkIds = chunkIds;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	// identifiants des chunks remplacés ou supprimés (peut être vide)
+	public Collection<String> getChunkIds() {
+		return chunkIds;
+	}
+
+	@Override
+	public String toString() {
+		return "DocumentIndexChangedEvent{fileName='" + fileName + "', chunks=" + chunkIds.size() + "}";
+	}
+}
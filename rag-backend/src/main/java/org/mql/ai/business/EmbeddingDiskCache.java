@@ -0,0 +1,382 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.embedding.Embedding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Cache disque des embeddings de chunks, adressé par contenu :
+ * clé = SHA-256(modèle d'embedding + texte du chunk), valeur = vecteur float brut.
+ * Fichier en ajout seul, lu via un mapping mémoire ; seul l'index clé -> position est en heap.
+ * Format d'un enregistrement : [clé 32 octets][dimension int][dimension x float].
+ * retainOnly() réécrit le fichier sans les vecteurs des chunks qui ne sont plus indexés.
+ */
+@Component
+public class EmbeddingDiskCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingDiskCache.class);
+
+    private static final int MAGIC = 0x52414745; // "RAGE"
+    private static final int HEADER_SIZE = 8;    // magic + version
+    private static final int VERSION = 1;
+    private static final int KEY_SIZE = 32;
+
+    private final boolean enabled;
+    private final String embeddingModelName;
+    private final Path cacheFile;
+    private final double compactionRatio;
+
+    private final Map<ByteBuffer, Long> index = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    // lectures et ajouts en lecture partagée, compaction (remplacement du fichier) en exclusif
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+    private long endOfFile;
+    private volatile MappedByteBuffer mapped;
+
+    public EmbeddingDiskCache(
+            @Value("${rag.cache.chunk-embeddings.enabled:true}") boolean enabled,
+            @Value("${rag.cache.chunk-embeddings.file:data/embedding-cache.bin}") String cacheFile,
+            @Value("${rag.embedding.model-id:${ollama.embedding.model}}") String embeddingModelName,
+            @Value("${rag.cache.chunk-embeddings.compaction-ratio:0.3}") double compactionRatio) {
+        this.embeddingModelName = embeddingModelName;
+        this.cacheFile = Paths.get(cacheFile);
+        this.compactionRatio = compactionRatio;
+        this.enabled = enabled && open();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // embedding en cache pour ce texte, ou null
+    public Embedding get(String text) {
+        if (!enabled) {
+            return null;
+        }
+        ByteBuffer key = key(text);
+        lock.readLock().lock();
+        try {
+            Long offset = index.get(key);
+            if (offset == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            float[] vector = read(offset);
+            hits.incrementAndGet();
+            return Embedding.from(vector);
+        } catch (IOException e) {
+            logger.warn(" Lecture du cache d'embeddings impossible: {}", e.getMessage());
+            misses.incrementAndGet();
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // clé hexadécimale du texte, à conserver pour retainOnly()
+    public String keyOf(String text) {
+        return HexFormat.of().formatHex(key(text).array());
+    }
+
+    public void put(String text, Embedding embedding) {
+        if (!enabled) {
+            return;
+        }
+        ByteBuffer key = key(text);
+        if (index.containsKey(key)) {
+            return;
+        }
+
+        float[] vector = embedding.vector();
+        ByteBuffer record = ByteBuffer.allocate(KEY_SIZE + 4 + vector.length * 4);
+        record.put(key.duplicate());
+        record.putInt(vector.length);
+        for (float v : vector) {
+            record.putFloat(v);
+        }
+        record.flip();
+
+        lock.readLock().lock();
+        try {
+            synchronized (this) {
+                if (index.containsKey(key)) {
+                    return;
+                }
+                long offset = endOfFile;
+                while (record.hasRemaining()) {
+                    channel.write(record, endOfFile + record.position());
+                }
+                endOfFile += record.limit();
+                index.put(key, offset);
+            }
+        } catch (IOException e) {
+            logger.warn(" Écriture dans le cache d'embeddings impossible: {}", e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ne garde que les vecteurs des clés données (chunks encore indexés, voir keyOf).
+     * Le fichier est réécrit à côté puis renommé, seulement si la part de vecteurs
+     * périmés dépasse compaction-ratio.
+     */
+    public void retainOnly(Collection<String> liveKeys) {
+        if (!enabled) {
+            return;
+        }
+        Set<ByteBuffer> live = liveKeys.stream()
+            .map(hex -> ByteBuffer.wrap(HexFormat.of().parseHex(hex)))
+            .collect(Collectors.toSet());
+
+        lock.writeLock().lock();
+        try {
+            long dead = index.keySet().stream().filter(key -> !live.contains(key)).count();
+            if (dead == 0 || dead < index.size() * compactionRatio) {
+                return;
+            }
+            compact(live, dead);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", index.size());
+        stats.put("fileBytes", endOfFile);
+        stats.put("compactions", compactions.get());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (channel == null) {
+                return;
+            }
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            logger.warn(" Fermeture du cache d'embeddings: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // sous le verrou exclusif : aucune lecture ni écriture en cours
+    private void compact(Set<ByteBuffer> live, long dead) {
+        long before = endOfFile;
+        Path compacted = cacheFile.resolveSibling(cacheFile.getFileName() + ".compact");
+        FileChannel target = null;
+        try {
+            target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writeFully(target, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip(), 0);
+
+            Map<ByteBuffer, Long> kept = new HashMap<>();
+            long position = HEADER_SIZE;
+            for (Map.Entry<ByteBuffer, Long> entry : index.entrySet()) {
+                if (!live.contains(entry.getKey())) {
+                    continue;
+                }
+                ByteBuffer dimension = ByteBuffer.allocate(4);
+                readFully(channel, dimension, entry.getValue() + KEY_SIZE);
+                ByteBuffer record = ByteBuffer.allocate(KEY_SIZE + 4 + dimension.flip().getInt() * 4);
+                readFully(channel, record, entry.getValue());
+                writeFully(target, record.flip(), position);
+                kept.put(entry.getKey(), position);
+                position += record.limit();
+            }
+            target.force(false);
+            Files.move(compacted, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            channel.close();
+            channel = target;
+            index.clear();
+            index.putAll(kept);
+            endOfFile = position;
+            mapped = null;
+            compactions.incrementAndGet();
+            logger.info(" Cache d'embeddings compacté: {} vecteurs retirés, {} -> {} octets", dead, before, position);
+
+        } catch (IOException e) {
+            logger.warn(" Compaction du cache d'embeddings impossible: {}", e.getMessage());
+            try {
+                if (target != null && target != channel) {
+                    target.close();
+                }
+                Files.deleteIfExists(compacted);
+            } catch (IOException ignored) {
+                // fichier temporaire laissé, écrasé à la prochaine compaction
+            }
+        }
+    }
+
+    private boolean open() {
+        try {
+            Path parent = cacheFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            channel = FileChannel.open(cacheFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if (channel.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                header.flip();
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    logger.warn(" Cache d'embeddings {} incompatible, il est réinitialisé", cacheFile);
+                    channel.truncate(HEADER_SIZE);
+                    channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip(), 0);
+                }
+            }
+
+            endOfFile = scan();
+            logger.info(" Cache d'embeddings de chunks: {} vecteurs ({} octets) dans {}",
+                index.size(), endOfFile, cacheFile);
+            return true;
+
+        } catch (IOException e) {
+            logger.error(" Cache d'embeddings indisponible ({}), désactivé", cacheFile, e);
+            return false;
+        }
+    }
+
+    // reconstruit l'index ; un enregistrement tronqué (arrêt brutal) est coupé
+    private long scan() throws IOException {
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        ByteBuffer head = ByteBuffer.allocate(KEY_SIZE + 4);
+
+        while (position + KEY_SIZE + 4 <= size) {
+            head.clear();
+            channel.read(head, position);
+            head.flip();
+            byte[] key = new byte[KEY_SIZE];
+            head.get(key);
+            int dimension = head.getInt();
+            long recordSize = KEY_SIZE + 4 + (long) dimension * 4;
+            if (dimension <= 0 || position + recordSize > size) {
+                break;
+            }
+            index.put(ByteBuffer.wrap(key), position);
+            position += recordSize;
+        }
+
+        if (position < size) {
+            logger.warn(" Cache d'embeddings: {} octets incomplets ignorés", size - position);
+            channel.truncate(position);
+        }
+        return position;
+    }
+
+    private float[] read(long offset) throws IOException {
+        MappedByteBuffer buffer = mappedCovering(offset + KEY_SIZE + 4);
+        if (buffer != null) {
+            int dimension = buffer.getInt((int) offset + KEY_SIZE);
+            if (offset + KEY_SIZE + 4 + (long) dimension * 4 <= buffer.capacity()) {
+                float[] vector = new float[dimension];
+                int position = (int) offset + KEY_SIZE + 4;
+                for (int i = 0; i < dimension; i++) {
+                    vector[i] = buffer.getFloat(position + i * 4);
+                }
+                return vector;
+            }
+        }
+
+        // hors du mapping (ajouté depuis, ou au-delà de 2 Go) : lecture positionnelle
+        ByteBuffer dimensionBuffer = ByteBuffer.allocate(4);
+        readFully(channel, dimensionBuffer, offset + KEY_SIZE);
+        int dimension = dimensionBuffer.flip().getInt();
+        ByteBuffer data = ByteBuffer.allocate(dimension * 4);
+        readFully(channel, data, offset + KEY_SIZE + 4);
+        data.flip();
+        float[] vector = new float[dimension];
+        data.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    // mapping en lecture refait seulement quand le fichier a doublé depuis le dernier : les
+    // enregistrements ajoutés entre-temps sont lus par position, sans remapper tout le fichier
+    private MappedByteBuffer mappedCovering(long end) throws IOException {
+        MappedByteBuffer current = mapped;
+        if (current != null && current.capacity() >= end) {
+            return current;
+        }
+        synchronized (this) {
+            long length = Math.min(endOfFile, Integer.MAX_VALUE);
+            if (mapped == null || length >= 2L * mapped.capacity()) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+            return mapped.capacity() >= end ? mapped : null;
+        }
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Fin de fichier inattendue à la position " + position);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer, position + buffer.position());
+        }
+    }
+
+    private ByteBuffer key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(embeddingModelName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -8,5 +8,6 @@ import java.util.List;
 public interface EmbeddingService {
 	Embedding embedText(String text);
 	List<Embedding> embedSegments(List<TextSegment> segments);
-	void storeEmbeddings(List<TextSegment> segments);
+	List<String> storeEmbeddings(List<TextSegment> segments);
+	List<String> storeEmbeddings(List<TextSegment> segments, List<Embedding> embeddings);
 }
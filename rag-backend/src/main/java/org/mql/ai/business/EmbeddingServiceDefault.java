@@ -7,10 +7,21 @@ import dev.langchain4j.model.output.Response;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class EmbeddingServiceDefault implements EmbeddingService {
@@ -18,10 +29,49 @@ public class EmbeddingServiceDefault implements EmbeddingService {
     private static final Logger logger = LoggerFactory.getLogger(EmbeddingServiceDefault.class);
     private final EmbeddingModel embeddingModel;
     private final EmbeddingStore<TextSegment> embeddingStore;
+    private final EmbeddingDiskCache diskCache;
+    private final RagMetrics metrics;
+    
+    private final int concurrency;
+    private final int maxRetries;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final AdaptiveBatchSizer batchSizer;
 
-    public EmbeddingServiceDefault(EmbeddingModel embeddingModel, EmbeddingStore<TextSegment> embeddingStore) {
+    public EmbeddingServiceDefault(EmbeddingModel embeddingModel, 
+            EmbeddingStore<TextSegment> embeddingStore,
+            EmbeddingDiskCache diskCache,
+            RagMetrics metrics,
+            @Value("${rag.embedding.concurrency:4}") int concurrency,
+            @Value("${rag.embedding.max-in-flight:8}") int maxInFlight,
+            @Value("${rag.embedding.batch-size.initial:16}") int initialBatchSize,
+            @Value("${rag.embedding.batch-size.min:1}") int minBatchSize,
+            @Value("${rag.embedding.batch-size.max:128}") int maxBatchSize,
+            @Value("${rag.embedding.target-latency-ms:2000}") long targetLatencyMs,
+            @Value("${rag.embedding.max-retries:2}") int maxRetries) {
         this.embeddingModel = embeddingModel;
         this.embeddingStore = embeddingStore;
+        this.diskCache = diskCache;
+        this.metrics = metrics;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxRetries = maxRetries;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.batchSizer = new AdaptiveBatchSizer(initialBatchSize, minBatchSize, maxBatchSize, targetLatencyMs);
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxInFlight), runnable -> {
+            Thread thread = new Thread(runnable, "embedding-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        logger.info(" Embeddings: {} lots en parallèle par appel, {} max en vol, lot initial {} ({}-{}), latence cible {}ms",
+            this.concurrency, maxInFlight, initialBatchSize, minBatchSize, maxBatchSize, targetLatencyMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
     }
 
     @Override
@@ -43,42 +93,193 @@ public class EmbeddingServiceDefault implements EmbeddingService {
 
     @Override
     public List<Embedding> embedSegments(List<TextSegment> segments) {
+        if (!diskCache.isEnabled()) {
+            return embedWithModel(segments);
+        }
+        
+        // seuls les textes jamais vus (ou déjà vus dans cet appel) partent vers Ollama
+        Embedding[] embeddings = new Embedding[segments.size()];
+        Map<String, List<Integer>> missingByText = new LinkedHashMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            String text = segments.get(i).text();
+            Embedding cached = diskCache.get(text);
+            if (cached != null) {
+                embeddings[i] = cached;
+            } else {
+                missingByText.computeIfAbsent(text, t -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        int missingCount = missingByText.values().stream().mapToInt(List::size).sum();
+        logger.info(" {} segments: {} embeddings en cache, {} textes à calculer",
+            segments.size(), segments.size() - missingCount, missingByText.size());
+        metrics.recordCacheLookups("chunk-embedding", segments.size() - missingCount, missingCount);
+        
+        if (!missingByText.isEmpty()) {
+            List<TextSegment> missing = new ArrayList<>();
+            for (List<Integer> positions : missingByText.values()) {
+                missing.add(segments.get(positions.get(0)));
+            }
+            
+            List<Embedding> computed = embedWithModel(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                Embedding embedding = computed.get(i);
+                diskCache.put(missing.get(i).text(), embedding);
+                for (int position : missingByText.get(missing.get(i).text())) {
+                    embeddings[position] = embedding;
+                }
+            }
+        }
+        
+        return new ArrayList<>(Arrays.asList(embeddings));
+    }
+
+    
+    // lots concurrents vers le modèle d'embedding
+    private List<Embedding> embedWithModel(List<TextSegment> segments) {
         logger.info(" Création d'embeddings pour {} segments", segments.size());
         
+        if (segments.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // chaque lot écrit à sa position : l'ordre des segments est conservé
+        Embedding[] embeddings = new Embedding[segments.size()];
+        Semaphore callSlots = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        
         try {
-            List<Embedding> embeddings = new ArrayList<>();
-            
-            int batchSize = 10;
-            for (int i = 0; i < segments.size(); i += batchSize) {
-                int end = Math.min(i + batchSize, segments.size());
-                List<TextSegment> batch = segments.subList(i, end);
-                Response<List<Embedding>> response = embeddingModel.embedAll(batch);
-                embeddings.addAll(response.content());
-             
-                logger.debug(" Batch {}/{} traité", (i / batchSize) + 1, (segments.size() + batchSize - 1) / batchSize);
+            int from = 0;
+            while (from < segments.size() && failure.get() == null) {
+                int to = Math.min(from + batchSizer.current(), segments.size());
+                int batchFrom = from;
+                
+                callSlots.acquire();
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    callSlots.release();
+                    throw e;
+                }
+                
+                batches.add(CompletableFuture
+                    .runAsync(() -> embedBatch(segments, batchFrom, to, embeddings, 0), executor)
+                    .whenComplete((ignored, error) -> {
+                        inFlight.release();
+                        callSlots.release();
+                        if (error != null) {
+                            failure.compareAndSet(null, error);
+                        }
+                    }));
+                from = to;
             }
             
-            logger.info(" {} embeddings créés avec succès", embeddings.size());
-            return embeddings;
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+            
+            logger.info(" {} embeddings créés avec succès ({} lots, taille de lot actuelle {})",
+                embeddings.length, batches.size(), batchSizer.current());
+            return new ArrayList<>(Arrays.asList(embeddings));
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Création des embeddings interrompue", e);
         } catch (Exception e) {
-            logger.error(" Erreur lors de la création des embeddings", e);
-            throw new RuntimeException("Erreur lors de la création des embeddings", e);
+            Throwable cause = failure.get() != null ? failure.get() : e;
+            logger.error(" Erreur lors de la création des embeddings", cause);
+            throw new RuntimeException("Erreur lors de la création des embeddings", cause);
         }
     }
 
+    
+    // un lot en échec est redécoupé en deux moitiés, jusqu'à maxRetries niveaux
+    private void embedBatch(List<TextSegment> segments, int from, int to, Embedding[] embeddings, int attempt) {
+        long start = System.currentTimeMillis();
+        try {
+            List<Embedding> batch = embeddingModel.embedAll(segments.subList(from, to)).content();
+            if (batch.size() != to - from) {
+                throw new IllegalStateException(
+                    "Ollama a renvoyé " + batch.size() + " embeddings pour " + (to - from) + " segments");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                embeddings[from + i] = batch.get(i);
+            }
+            batchSizer.onSuccess(to - from, System.currentTimeMillis() - start);
+            metrics.recordEmbeddingBatch(to - from, System.currentTimeMillis() - start, true);
+            logger.debug(" Lot [{}, {}) traité en {}ms", from, to, System.currentTimeMillis() - start);
+            
+        } catch (RuntimeException e) {
+            batchSizer.onError();
+            metrics.recordEmbeddingBatch(to - from, System.currentTimeMillis() - start, false);
+            metrics.recordError("embedding", e);
+            if (attempt >= maxRetries) {
+                throw e;
+            }
+            logger.warn(" Lot [{}, {}) en échec ({}), nouvel essai", from, to, e.getMessage());
+            int middle = from + (to - from) / 2;
+            if (middle > from) {
+                embedBatch(segments, from, middle, embeddings, attempt + 1);
+            }
+            embedBatch(segments, middle, to, embeddings, attempt + 1);
+        }
+    }
+
+    @Override
+    public List<String> storeEmbeddings(List<TextSegment> segments) {
+        return storeEmbeddings(segments, embedSegments(segments));
+    }
+
     @Override
-    public void storeEmbeddings(List<TextSegment> segments) {
+    public List<String> storeEmbeddings(List<TextSegment> segments, List<Embedding> embeddings) {
         logger.info(" Stockage de {} segments dans ChromaDB", segments.size());
         
         try {
-            List<Embedding> embeddings = embedSegments(segments);
             List<String> ids = embeddingStore.addAll(embeddings, segments);
             logger.info(" {} embeddings stockés avec succès", ids.size());
+            return ids;
             
         } catch (Exception e) {
             logger.error(" Erreur lors du stockage des embeddings", e);
             throw new RuntimeException("Erreur lors du stockage des embeddings", e);
         }
     }
-}
\ No newline at end of file
+
+    
+    /**
+     * Taille de lot adaptative (AIMD) : croissance additive d'un pas constant (un quart de la
+     * taille initiale) tant que la latence reste sous la cible, division par deux si elle la
+     * dépasse ou en cas d'erreur.
+     */
+    static final class AdaptiveBatchSizer {
+        private final int min;
+        private final int max;
+        private final int step;
+        private final long targetLatencyMs;
+        private int current;
+
+        AdaptiveBatchSizer(int initial, int min, int max, long targetLatencyMs) {
+            this.min = Math.max(1, min);
+            this.max = Math.max(this.min, max);
+            this.targetLatencyMs = targetLatencyMs;
+            this.current = Math.min(this.max, Math.max(this.min, initial));
+            this.step = Math.max(1, this.current / 4);
+        }
+
+        synchronized int current() {
+            return current;
+        }
+
+        synchronized void onSuccess(int batchSize, long latencyMs) {
+            if (latencyMs > targetLatencyMs) {
+                current = Math.max(min, current / 2);
+            } else if (batchSize >= current && latencyMs < targetLatencyMs / 2) {
+                // seuls les lots pleins renseignent sur la capacité
+                current = Math.min(max, current + step);
+            }
+        }
+
+        synchronized void onError() {
+            current = Math.max(min, current / 2);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.mql.ai.business;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.mql.ai.models.IngestionJob;
+
+public interface IngestionJobService {
+	IngestionJob submitUpload(InputStream content, String fileName);
+	IngestionJob submitUpload(Path uploadedFile, String fileName);
+	Optional<IngestionJob> getJob(String id);
+	List<IngestionJob> getJobs();
+}
@@ -0,0 +1,136 @@
+package org.mql.ai.business;
+
+import org.mql.ai.models.DocumentMetadata;
+import org.mql.ai.models.IngestionJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class IngestionJobServiceDefault implements IngestionJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJobServiceDefault.class);
+
+    private final PDFLoaderService pdfLoaderService;
+    private final ExecutorService ingestionExecutor;
+    private final int retention;
+
+    // ordre de création, les plus anciens jobs terminés sont oubliés au-delà de "retention"
+    private final LinkedHashMap<String, IngestionJob> jobs = new LinkedHashMap<>();
+
+    public IngestionJobServiceDefault(PDFLoaderService pdfLoaderService,
+                                      @Value("${rag.ingestion.job-threads:2}") int jobThreads,
+                                      @Value("${rag.ingestion.job-retention:200}") int retention) {
+        this.pdfLoaderService = pdfLoaderService;
+        this.retention = retention;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.ingestionExecutor = Executors.newFixedThreadPool(Math.max(1, jobThreads), runnable -> {
+            Thread thread = new Thread(runnable, "ingestion-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.info(" Jobs d'indexation: {} threads", jobThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestionExecutor.shutdownNow();
+    }
+
+    @Override
+    public IngestionJob submitUpload(InputStream content, String fileName) {
+        // écriture synchrone : le fichier doit exister avant la fin de la requête HTTP
+        return submit(pdfLoaderService.saveUploadedPDF(content, fileName), fileName);
+    }
+
+    @Override
+    public IngestionJob submitUpload(Path uploadedFile, String fileName) {
+        return submit(pdfLoaderService.saveUploadedPDF(uploadedFile, fileName), fileName);
+    }
+
+    private IngestionJob submit(Path pdfPath, String fileName) {
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), fileName);
+        register(job);
+        logger.info(" Job {} créé pour {}", job.getId(), fileName);
+
+        try {
+            ingestionExecutor.execute(() -> run(job, pdfPath));
+        } catch (RejectedExecutionException e) {
+            // arrêt en cours : sans job, la réservation du fichier bloquerait le watcher et les uploads suivants
+            logger.error(" Job {} refusé par l'exécuteur ({})", job.getId(), fileName);
+            pdfLoaderService.releaseUpload(fileName);
+            job.fail("L'indexation de '" + fileName + "' n'a pas pu être planifiée");
+        }
+        return job;
+    }
+
+    @Override
+    public Optional<IngestionJob> getJob(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    @Override
+    public List<IngestionJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    private void run(IngestionJob job, Path pdfPath) {
+        job.start();
+        logger.info(" Job {} démarré ({})", job.getId(), job.getFileName());
+
+        try {
+            DocumentMetadata metadata = pdfLoaderService.indexUploadedPDF(pdfPath, new IngestionListener() {
+                @Override
+                public void onChunksSplit(int total) {
+                    job.setChunksTotal(total);
+                }
+
+                @Override
+                public void onChunksEmbedded(int count) {
+                    job.addChunksEmbedded(count);
+                }
+            });
+
+            if (metadata == null) {
+                job.fail("L'indexation de '" + job.getFileName() + "' a échoué");
+            } else {
+                job.complete(metadata);
+            }
+        } catch (Exception e) {
+            logger.error(" Job {} en erreur", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+
+        logger.info(" Job {} terminé: {} ({} chunks, {} chunks/s)", job.getId(), job.getState(),
+            job.getChunksEmbedded(), String.format(Locale.ROOT, "%.1f", job.getChunksPerSecond()));
+    }
+
+    private void register(IngestionJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            Iterator<IngestionJob> it = jobs.values().iterator();
+            while (jobs.size() > retention && it.hasNext()) {
+                IngestionJob oldest = it.next();
+                if (oldest.getState() == IngestionJob.State.COMPLETED || oldest.getState() == IngestionJob.State.FAILED) {
+                    it.remove();
+                }
+            }
+        }
+    }
+}
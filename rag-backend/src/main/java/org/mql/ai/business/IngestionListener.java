@@ -0,0 +1,13 @@
+package org.mql.ai.business;
+
+// progression de l'indexation d'un document
+public interface IngestionListener {
+	IngestionListener NONE = new IngestionListener() {};
+
+	default void onChunksSplit(int total) {}
+	default void onChunksEmbedded(int count) {}
+	// documents mis en file (réconciliation au démarrage)
+	default void onQueued(int documents) {}
+	// document terminé, indexé ou en échec
+	default void onFinished(boolean indexed) {}
+}
@@ -0,0 +1,357 @@
+package org.mql.ai.business;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import jakarta.annotation.PreDestroy;
+import org.mql.ai.exceptions.PDFLoadException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalogue des documents indexés persisté sur disque, une entrée par fichier PDF :
+ * id stable, hash du contenu, taille, date de modification, ids des chunks stockés et date d'indexation.
+ * Journal en ajout seul (une ligne JSON par écriture ou suppression) rejoué au démarrage et
+ * compacté quand il contient trop d'enregistrements périmés ; les lectures sont servies depuis la mémoire.
+ */
+@Component
+public class IngestionManifest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionManifest.class);
+
+    private static final String PUT = "put";
+    private static final String REMOVE = "remove";
+    // en dessous, le journal n'est jamais compacté : quelques lignes en trop ne coûtent rien
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 64;
+
+    private final Path journalFile;
+    private final Path legacyFile;
+    private final double compactionRatio;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private FileChannel journal;
+    private int records;
+
+    record Change(String op, String fileName, Entry entry) {}
+
+    public IngestionManifest(@Value("${rag.manifest.file:data/ingestion-manifest.log}") String journalFile,
+                             @Value("${rag.manifest.legacy-file:data/ingestion-manifest.json}") String legacyFile,
+                             @Value("${rag.manifest.compaction-ratio:2.0}") double compactionRatio,
+                             ObjectMapper objectMapper) {
+        this.journalFile = Paths.get(journalFile);
+        this.legacyFile = Paths.get(legacyFile);
+        this.compactionRatio = Math.max(1.0, compactionRatio);
+        this.objectMapper = objectMapper;
+        load();
+    }
+
+    public Optional<Entry> get(String fileName) {
+        return Optional.ofNullable(entries.get(fileName));
+    }
+
+    public boolean contains(String fileName) {
+        return entries.containsKey(fileName);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Set<String> getFileNames() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    public List<Entry> getAll() {
+        List<Entry> all = new ArrayList<>(entries.values());
+        all.sort(Comparator.comparing(Entry::getFileName));
+        return all;
+    }
+
+    public synchronized void put(Entry entry) {
+        append(new Change(PUT, entry.getFileName(), entry));
+        entries.put(entry.getFileName(), entry);
+        compactIfNeeded();
+    }
+
+    public synchronized Optional<Entry> remove(String fileName) {
+        Entry removed = entries.get(fileName);
+        if (removed != null) {
+            append(new Change(REMOVE, fileName, null));
+            entries.remove(fileName);
+            compactIfNeeded();
+        }
+        return Optional.ofNullable(removed);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.warn(" Fermeture du catalogue impossible: {}", e.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    // SHA-256 du fichier, lu en flux
+    public static String hash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private synchronized void load() {
+        long start = System.nanoTime();
+        boolean rewrite = false;
+        try {
+            if (Files.exists(journalFile)) {
+                rewrite = replay();
+            } else if (Files.exists(legacyFile)) {
+                importLegacy();
+                rewrite = true;
+            } else {
+                logger.info(" Aucun catalogue de documents trouvé ({}), il sera créé", journalFile);
+            }
+        } catch (IOException e) {
+            logger.error(" Catalogue de documents illisible ({}), les documents seront réindexés", journalFile, e);
+            entries.clear();
+            rewrite = true;
+        }
+        if (rewrite || needsCompaction()) {
+            compact();
+        }
+        logger.info(" Catalogue de documents chargé: {} documents en {} ms",
+            entries.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // rejoue le journal ; true si une ligne est illisible (arrêt brutal pendant une écriture)
+    private boolean replay() throws IOException {
+        boolean corrupted = false;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    apply(objectMapper.readValue(line, Change.class));
+                    records++;
+                } catch (JsonProcessingException e) {
+                    logger.warn(" Enregistrement illisible ignoré dans {}: {}", journalFile, e.getOriginalMessage());
+                    corrupted = true;
+                }
+            }
+        }
+        return corrupted;
+    }
+
+    private void apply(Change record) {
+        if (PUT.equals(record.op()) && record.entry() != null) {
+            entries.put(record.entry().getFileName(), record.entry());
+        } else if (REMOVE.equals(record.op())) {
+            entries.remove(record.fileName());
+        }
+    }
+
+    // ancien manifeste JSON : repris tel quel (ids et dates d'indexation conservés)
+    private void importLegacy() throws IOException {
+        CollectionType type = objectMapper.getTypeFactory().constructCollectionType(List.class, Entry.class);
+        List<Entry> loaded = objectMapper.readValue(legacyFile.toFile(), type);
+        for (Entry entry : loaded) {
+            entries.put(entry.getFileName(), entry);
+        }
+        logger.info(" Manifeste {} repris dans le catalogue: {} documents", legacyFile, loaded.size());
+    }
+
+    private void append(Change record) {
+        try {
+            if (journal == null) {
+                Files.createDirectories(journalFile.toAbsolutePath().getParent());
+                journal = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            records++;
+        } catch (IOException e) {
+            throw new PDFLoadException("Impossible d'écrire dans le catalogue de documents: " + journalFile, e);
+        }
+    }
+
+    private boolean needsCompaction() {
+        return records > MIN_RECORDS_BEFORE_COMPACTION && records > entries.size() * compactionRatio;
+    }
+
+    private void compactIfNeeded() {
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    // réécrit une ligne par document vivant dans un fichier temporaire puis renommage atomique
+    private void compact() {
+        close();
+        try {
+            Path parent = journalFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "catalog", ".tmp");
+            StringBuilder content = new StringBuilder();
+            for (Entry entry : getAll()) {
+                content.append(objectMapper.writeValueAsString(new Change(PUT, entry.getFileName(), entry))).append('\n');
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug(" Catalogue compacté: {} enregistrements -> {}", records, entries.size());
+            records = entries.size();
+        } catch (IOException e) {
+            throw new PDFLoadException("Impossible de compacter le catalogue de documents: " + journalFile, e);
+        }
+    }
+
+    public static class Entry {
+        private String fileName;
+        private String documentId;
+        private String contentHash;
+        private long fileSize;
+        private long lastModified;
+        private int chunkCount;
+        private List<String> chunkIds = new ArrayList<>();
+        // clés des vecteurs dans le cache disque (EmbeddingDiskCache.keyOf), null pour les anciennes entrées
+        private List<String> chunkHashes;
+        private String embeddingModel;
+        private LocalDateTime indexDate;
+
+        public Entry() {
+        }
+
+        // taille + date de modification identiques : fichier considéré inchangé sans le relire
+        public boolean matches(long size, long modified) {
+            return fileSize == size && lastModified == modified;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public void setFileName(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public void setDocumentId(String documentId) {
+            this.documentId = documentId;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        public void setContentHash(String contentHash) {
+            this.contentHash = contentHash;
+        }
+
+        public long getFileSize() {
+            return fileSize;
+        }
+
+        public void setFileSize(long fileSize) {
+            this.fileSize = fileSize;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public void setLastModified(long lastModified) {
+            this.lastModified = lastModified;
+        }
+
+        public int getChunkCount() {
+            return chunkCount;
+        }
+
+        public void setChunkCount(int chunkCount) {
+            this.chunkCount = chunkCount;
+        }
+
+        public List<String> getChunkIds() {
+            return chunkIds;
+        }
+
+        public void setChunkIds(List<String> chunkIds) {
+            this.chunkIds = chunkIds;
+        }
+
+        public List<String> getChunkHashes() {
+            return chunkHashes;
+        }
+
+        public void setChunkHashes(List<String> chunkHashes) {
+            this.chunkHashes = chunkHashes;
+        }
+
+        public String getEmbeddingModel() {
+            return embeddingModel;
+        }
+
+        public void setEmbeddingModel(String embeddingModel) {
+            this.embeddingModel = embeddingModel;
+        }
+
+        public LocalDateTime getIndexDate() {
+            return indexDate;
+        }
+
+        public void setIndexDate(LocalDateTime indexDate) {
+            this.indexDate = indexDate;
+        }
+    }
+}
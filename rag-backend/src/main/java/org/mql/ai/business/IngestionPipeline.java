@@ -0,0 +1,233 @@
+package org.mql.ai.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Pipeline à étages : chaque étage a ses propres threads et lit ses éléments dans une file
+ * bornée alimentée par l'étage précédent. Une file pleine bloque l'étage amont (backpressure),
+ * ce qui permet de faire se chevaucher le parsing (CPU) et l'embedding / stockage (I/O).
+ * Un étage peut émettre zéro, un ou plusieurs éléments par élément reçu.
+ * Une Error (ex. OutOfMemoryError d'un gros PDF) arrête le traitement : les étages vident leurs
+ * files sans traiter, les marques de fin sont propagées et run() relance l'erreur.
+ */
+class IngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    // marque de fin de flux, une par thread de l'étage suivant
+    private static final Object END = new Object();
+
+    @FunctionalInterface
+    interface StageFunction<I, O> {
+        void process(I item, Consumer<O> emit) throws Exception;
+    }
+
+    private final String name;
+    private final int queueCapacity;
+    private final List<Stage> stages = new ArrayList<>();
+    // durée de chaque élément traité (nom de l'étage, nanosecondes), pour les métriques
+    private ObjLongConsumer<String> itemObserver = (stage, nanos) -> { };
+
+    IngestionPipeline(String name, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    <I, O> IngestionPipeline stage(String stageName, int parallelism, StageFunction<I, O> function) {
+        stages.add(new Stage(stageName, Math.max(1, parallelism), (StageFunction<Object, Object>) function));
+        return this;
+    }
+
+    IngestionPipeline observeItems(ObjLongConsumer<String> observer) {
+        this.itemObserver = observer;
+        return this;
+    }
+
+    // exécute le pipeline sur les entrées et bloque jusqu'à la fin du dernier étage
+    void run(Collection<?> inputs) {
+        if (stages.isEmpty() || inputs.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<BlockingQueue<Object>> queues = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+
+        AtomicReference<Error> fatal = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            BlockingQueue<Object> input = queues.get(i);
+            BlockingQueue<Object> output = i + 1 < stages.size() ? queues.get(i + 1) : null;
+            int downstreamWorkers = i + 1 < stages.size() ? stages.get(i + 1).parallelism : 0;
+            AtomicInteger remainingWorkers = new AtomicInteger(stage.parallelism);
+
+            for (int w = 0; w < stage.parallelism; w++) {
+                Thread thread = new Thread(
+                    () -> work(stage, input, output, remainingWorkers, downstreamWorkers, fatal),
+                    name + "-" + stage.name + "-" + w);
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+        }
+
+        try {
+            BlockingQueue<Object> first = queues.get(0);
+            for (Object input : inputs) {
+                first.put(input);
+            }
+            for (int w = 0; w < stages.get(0).parallelism; w++) {
+                first.put(END);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pipeline d'ingestion interrompu", e);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        logger.info(" Pipeline {} terminé en {}ms", name, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        for (Stage stage : stages) {
+            logger.info("   - {}", stage.describe(elapsedNanos));
+        }
+        if (fatal.get() != null) {
+            throw fatal.get();
+        }
+    }
+
+    // statistiques par étage du dernier run
+    Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (Stage stage : stages) {
+            stats.put(stage.name, stage.toMap());
+        }
+        return stats;
+    }
+
+    private void work(Stage stage, BlockingQueue<Object> input, BlockingQueue<Object> output,
+                      AtomicInteger remainingWorkers, int downstreamWorkers, AtomicReference<Error> fatal) {
+        Consumer<Object> emit = item -> {
+            stage.itemsOut.incrementAndGet();
+            if (output == null) {
+                return;
+            }
+            try {
+                output.put(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        };
+
+        try {
+            while (true) {
+                Object item = input.take();
+                if (item == END) {
+                    break;
+                }
+                if (fatal.get() != null) {
+                    // erreur fatale ailleurs : on vide la file pour ne pas bloquer l'amont
+                    continue;
+                }
+                long itemStart = System.nanoTime();
+                try {
+                    stage.function.process(item, emit);
+                } catch (Exception e) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    stage.errors.incrementAndGet();
+                    logger.error(" Étage {} en erreur: {}", stage.name, e.getMessage(), e);
+                } catch (Error e) {
+                    stage.errors.incrementAndGet();
+                    fatal.compareAndSet(null, e);
+                    logger.error(" Étage {} arrêté par une erreur fatale: {}", stage.name, e.toString(), e);
+                } finally {
+                    long itemNanos = System.nanoTime() - itemStart;
+                    stage.itemsIn.incrementAndGet();
+                    stage.busyNanos.addAndGet(itemNanos);
+                    itemObserver.accept(stage.name, itemNanos);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // le dernier thread de l'étage signale la fin à l'étage suivant, quelle que soit la
+            // façon dont il s'arrête : sinon run() attendrait indéfiniment l'étage suivant
+            if (remainingWorkers.decrementAndGet() == 0 && output != null) {
+                signalEnd(output, downstreamWorkers);
+            }
+        }
+    }
+
+    private static void signalEnd(BlockingQueue<Object> output, int downstreamWorkers) {
+        try {
+            for (int w = 0; w < downstreamWorkers; w++) {
+                output.put(END);
+            }
+        } catch (InterruptedException e) {
+            // arrêt demandé par run() : tous les threads sont déjà interrompus
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Stage {
+        private final String name;
+        private final int parallelism;
+        private final StageFunction<Object, Object> function;
+        private final AtomicLong itemsIn = new AtomicLong();
+        private final AtomicLong itemsOut = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private volatile long lastElapsedNanos;
+
+        private Stage(String name, int parallelism, StageFunction<Object, Object> function) {
+            this.name = name;
+            this.parallelism = parallelism;
+            this.function = function;
+        }
+
+        private String describe(long elapsedNanos) {
+            lastElapsedNanos = elapsedNanos;
+            return String.format(Locale.ROOT, "%s: %d threads, %d entrées, %d sorties, %d erreurs, %.1f éléments/s, occupation %.0f%%",
+                name, parallelism, itemsIn.get(), itemsOut.get(), errors.get(),
+                throughput(elapsedNanos), occupancy(elapsedNanos) * 100);
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("parallelism", parallelism);
+            map.put("itemsIn", itemsIn.get());
+            map.put("itemsOut", itemsOut.get());
+            map.put("errors", errors.get());
+            map.put("itemsPerSecond", throughput(lastElapsedNanos));
+            map.put("busyMs", TimeUnit.NANOSECONDS.toMillis(busyNanos.get()));
+            return map;
+        }
+
+        private double throughput(long elapsedNanos) {
+            return elapsedNanos == 0 ? 0.0 : itemsIn.get() / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        // part du temps où les threads de l'étage travaillaient
+        private double occupancy(long elapsedNanos) {
+            return elapsedNanos == 0 ? 0.0 : busyNanos.get() / ((double) elapsedNanos * parallelism);
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index lexical inversé (BM25) sur les chunks indexés, pour les termes exacts (SaaS, SLA, Kubernetes...)
+ * que la recherche vectorielle rate. Listes de postings en tableaux primitifs (doc, fréquence).
+ * Seuls les chunks (id, texte, métadonnées) sont sauvegardés sur disque ; les postings sont reconstruits au chargement.
+ */
+@Component
+public class LexicalIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LexicalIndex.class);
+
+    private static final int MAGIC = 0x5241474C; // "RAGL"
+    private static final int VERSION = 1;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+        "le", "la", "les", "un", "une", "des", "du", "de", "et", "ou", "est", "sont", "dans", "pour", "par",
+        "que", "qui", "quoi", "avec", "sur", "au", "aux", "ce", "ces", "cette", "il", "elle", "on", "en", "ne", "pas",
+        "the", "is", "are", "and", "or", "in", "at", "of", "to", "a", "an", "what", "how", "why", "which",
+        "it", "this", "that", "be", "for", "with", "as", "by");
+
+    public record Hit(String chunkId, TextSegment segment, double score) {}
+
+    private final boolean enabled;
+    private final Path indexFile;
+    private final double k1;
+    private final double b;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private PostingList[] postings = new PostingList[1024];
+    private final Map<String, Integer> chunkToDoc = new HashMap<>();
+    private String[] chunkIds = new String[1024];
+    private TextSegment[] segments = new TextSegment[1024];
+    private int[] docLengths = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private int docCount;
+    private int liveDocs;
+    private long liveLength;
+
+    private volatile boolean dirty;
+    private ScheduledExecutorService snapshotScheduler;
+
+    // documents contenant un terme, par ordre croissant, avec la fréquence du terme
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+        // documents non supprimés (df de l'idf), les postings supprimés restent jusqu'au compactage
+        private int live;
+
+        private void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            live++;
+        }
+    }
+
+    public LexicalIndex(@Value("${rag.retrieval.hybrid.enabled:true}") boolean enabled,
+                        @Value("${rag.retrieval.hybrid.index-file:data/lexical-index.bin}") String indexFile,
+                        @Value("${rag.retrieval.hybrid.bm25-k1:1.2}") double k1,
+                        @Value("${rag.retrieval.hybrid.bm25-b:0.75}") double b,
+                        @Value("${rag.retrieval.hybrid.snapshot-interval-seconds:30}") long snapshotIntervalSeconds) {
+        this.enabled = enabled;
+        this.indexFile = Paths.get(indexFile);
+        this.k1 = k1;
+        this.b = b;
+
+        if (enabled) {
+            load();
+            if (snapshotIntervalSeconds > 0) {
+                snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "lexical-snapshot");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                snapshotScheduler.scheduleWithFixedDelay(this::saveIfDirty,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(List<String> ids, List<TextSegment> texts) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                Integer previous = chunkToDoc.remove(ids.get(i));
+                if (previous != null) {
+                    markDeleted(previous);
+                }
+                addDocument(ids.get(i), texts.get(i));
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Collection<String> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                Integer doc = chunkToDoc.remove(id);
+                if (doc != null) {
+                    markDeleted(doc);
+                    dirty = true;
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // index construit avant le manifeste : chunks retrouvés par leur fichier
+    public void removeFile(String fileName) {
+        if (!enabled) {
+            return;
+        }
+        lock.readLock().lock();
+        List<String> ids = new ArrayList<>();
+        try {
+            for (int doc = 0; doc < docCount; doc++) {
+                if (!deleted.get(doc) && fileName.equals(segments[doc].metadata().getString("file_name"))) {
+                    ids.add(chunkIds[doc]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        remove(ids);
+    }
+
+    public boolean containsAll(Collection<String> ids) {
+        if (!enabled) {
+            return true;
+        }
+        lock.readLock().lock();
+        try {
+            return chunkToDoc.keySet().containsAll(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // retire les chunks inconnus du manifeste (arrêt brutal entre deux sauvegardes)
+    public void retainOnly(Set<String> ids) {
+        if (!enabled) {
+            return;
+        }
+        List<String> orphans;
+        lock.readLock().lock();
+        try {
+            orphans = chunkToDoc.keySet().stream().filter(id -> !ids.contains(id)).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!orphans.isEmpty()) {
+            logger.info(" Index lexical: {} chunks orphelins retirés", orphans.size());
+            remove(orphans);
+        }
+    }
+
+    public List<Hit> search(String query, int maxResults) {
+        if (!enabled) {
+            return List.of();
+        }
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0 || terms.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = (double) liveLength / liveDocs;
+            // accumulateurs indexés par document, seuls les documents touchés sont parcourus ensuite
+            double[] scores = new double[docCount];
+            BitSet touched = new BitSet(docCount);
+
+            for (String term : terms) {
+                Integer termId = termIds.get(term);
+                if (termId == null) {
+                    continue;
+                }
+                PostingList list = postings[termId];
+                int df = list.live;
+                double idf = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    int tf = list.freqs[i];
+                    double norm = tf + k1 * (1 - b + b * docLengths[doc] / averageLength);
+                    touched.set(doc);
+                    scores[doc] += idf * tf * (k1 + 1) / norm;
+                }
+            }
+
+            PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.comparingDouble(doc -> scores[doc]));
+            for (int doc = touched.nextSetBit(0); doc >= 0; doc = touched.nextSetBit(doc + 1)) {
+                top.add(doc);
+                if (top.size() > maxResults) {
+                    top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                int doc = top.poll();
+                hits.add(new Hit(chunkIds[doc], segments[doc], scores[doc]));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("chunks", liveDocs);
+            stats.put("terms", termIds.size());
+            stats.put("deleted", docCount - liveDocs);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // minuscules, sans accents, découpage sur tout ce qui n'est ni lettre ni chiffre
+    static List<String> tokenize(String text) {
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (token.length() >= 2 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void addDocument(String id, TextSegment segment) {
+        int doc = docCount;
+        if (doc == chunkIds.length) {
+            int capacity = doc * 2;
+            chunkIds = Arrays.copyOf(chunkIds, capacity);
+            segments = Arrays.copyOf(segments, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+        }
+
+        List<String> tokens = tokenize(segment.text());
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postingsFor(entry.getKey()).add(doc, entry.getValue());
+        }
+
+        chunkIds[doc] = id;
+        segments[doc] = segment;
+        docLengths[doc] = tokens.size();
+        chunkToDoc.put(id, doc);
+        docCount++;
+        liveDocs++;
+        liveLength += tokens.size();
+    }
+
+    private PostingList postingsFor(String term) {
+        Integer termId = termIds.get(term);
+        if (termId == null) {
+            termId = termIds.size();
+            termIds.put(term, termId);
+            if (termId == postings.length) {
+                postings = Arrays.copyOf(postings, termId * 2);
+            }
+            postings[termId] = new PostingList();
+        }
+        return postings[termId];
+    }
+
+    private void markDeleted(int doc) {
+        if (!deleted.get(doc)) {
+            deleted.set(doc);
+            liveDocs--;
+            liveLength -= docLengths[doc];
+            // termes du chunk retrouvés en le retokenisant : pas de liste de termes par document en mémoire
+            for (String term : new HashSet<>(tokenize(segments[doc].text()))) {
+                postings[termIds.get(term)].live--;
+            }
+        }
+    }
+
+    // reconstruit les postings sans les chunks supprimés
+    private void compactIfNeeded() {
+        int deletedDocs = docCount - liveDocs;
+        if (deletedDocs < Math.max(256, docCount / 4)) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(liveDocs);
+        List<TextSegment> texts = new ArrayList<>(liveDocs);
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!deleted.get(doc)) {
+                ids.add(chunkIds[doc]);
+                texts.add(segments[doc]);
+            }
+        }
+        clear();
+        for (int i = 0; i < ids.size(); i++) {
+            addDocument(ids.get(i), texts.get(i));
+        }
+        logger.info(" Index lexical compacté: {} chunks supprimés retirés", deletedDocs);
+    }
+
+    private void clear() {
+        termIds.clear();
+        postings = new PostingList[1024];
+        chunkToDoc.clear();
+        chunkIds = new String[1024];
+        segments = new TextSegment[1024];
+        docLengths = new int[1024];
+        deleted.clear();
+        docCount = 0;
+        liveDocs = 0;
+        liveLength = 0;
+    }
+
+    // --- sauvegarde ---
+
+    private void saveIfDirty() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    private synchronized void save() {
+        // copie des chunks vivants sous le verrou, écriture disque hors verrou : add/remove ne sont pas bloqués
+        List<String> ids;
+        List<TextSegment> texts;
+        lock.readLock().lock();
+        try {
+            dirty = false;
+            ids = new ArrayList<>(liveDocs);
+            texts = new ArrayList<>(liveDocs);
+            for (int doc = 0; doc < docCount; doc++) {
+                if (!deleted.get(doc)) {
+                    ids.add(chunkIds[doc]);
+                    texts.add(segments[doc]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            Path parent = indexFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "lexical", ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(ids.size());
+                for (int i = 0; i < ids.size(); i++) {
+                    writeString(out, ids.get(i));
+                    writeString(out, texts.get(i).text());
+                    Map<String, Object> metadata = texts.get(i).metadata().toMap();
+                    out.writeInt(metadata.size());
+                    for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+                        writeString(out, entry.getKey());
+                        writeString(out, String.valueOf(entry.getValue()));
+                    }
+                }
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug(" Index lexical sauvegardé: {} chunks", ids.size());
+        } catch (IOException e) {
+            dirty = true;
+            logger.error(" Sauvegarde de l'index lexical impossible ({})", indexFile, e);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(indexFile)) {
+            logger.info(" Aucun index lexical trouvé ({}), il sera créé", indexFile);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn(" Index lexical {} incompatible, il sera reconstruit", indexFile);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = readString(in);
+                String text = readString(in);
+                int entries = in.readInt();
+                Map<String, Object> metadata = new HashMap<>();
+                for (int e = 0; e < entries; e++) {
+                    metadata.put(readString(in), readString(in));
+                }
+                addDocument(id, TextSegment.from(text, Metadata.from(metadata)));
+            }
+            logger.info(" Index lexical chargé: {} chunks, {} termes en {}ms",
+                liveDocs, termIds.size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            logger.error(" Index lexical illisible ({}), il sera reconstruit", indexFile, e);
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        if (enabled) {
+            saveIfDirty();
+        }
+    }
+}
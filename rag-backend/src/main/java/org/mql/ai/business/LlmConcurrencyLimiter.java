@@ -0,0 +1,114 @@
+package org.mql.ai.business;
+
+import org.mql.ai.exceptions.LlmOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite le nombre de générations simultanées envoyées au modèle de chat.
+ * Au-delà, les requêtes attendent dans une file bornée (max-queue, queue-timeout) ;
+ * file pleine ou attente trop longue : LlmOverloadedException (503 + Retry-After).
+ * Le nombre de threads HTTP bloqués sur Ollama reste ainsi borné par max-concurrent + max-queue.
+ */
+@Component
+public class LlmConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmConcurrencyLimiter.class);
+
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long queueTimeoutMillis;
+    private final long retryAfterSeconds;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public LlmConcurrencyLimiter(
+            @Value("${rag.llm.max-concurrent:4}") int maxConcurrent,
+            @Value("${rag.llm.max-queue:16}") int maxQueue,
+            @Value("${rag.llm.queue-timeout-seconds:30}") long queueTimeoutSeconds,
+            @Value("${rag.llm.retry-after-seconds:10}") long retryAfterSeconds) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.queueTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(0, queueTimeoutSeconds));
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.permits = new Semaphore(this.maxConcurrent, true);
+
+        logger.info(" Générations LLM simultanées: max {} (file: {}, attente max {}s)",
+            this.maxConcurrent, this.maxQueue, queueTimeoutSeconds);
+    }
+
+    // obtient une place de génération ; l'appelant doit appeler release() exactement une fois
+    public void acquire() {
+        if (permits.tryAcquire()) {
+            accepted.incrementAndGet();
+            return;
+        }
+
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            throw reject("file d'attente pleine");
+        }
+        queued.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw reject("attente trop longue");
+            }
+            accepted.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("attente interrompue");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    // refus immédiat si la file est déjà pleine, sans réserver de place ni attendre :
+    // l'appelant peut répondre 503 puis appeler acquire() plus tard, hors du thread HTTP
+    public void checkAdmission() {
+        if (permits.availablePermits() == 0 && waiting.get() >= maxQueue) {
+            throw reject("file d'attente pleine");
+        }
+    }
+
+    // générations en cours + en attente : au-delà, toute nouvelle demande est refusée
+    public int capacity() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) maxConcurrent + maxQueue);
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("maxQueue", maxQueue);
+        stats.put("active", maxConcurrent - permits.availablePermits());
+        stats.put("waiting", waiting.get());
+        stats.put("accepted", accepted.get());
+        stats.put("queued", queued.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    LlmOverloadedException reject(String reason) {
+        rejected.incrementAndGet();
+        logger.warn(" Génération refusée ({}): {} en cours, {} en attente",
+            reason, maxConcurrent - permits.availablePermits(), waiting.get());
+        return new LlmOverloadedException("Le modèle est saturé (" + reason + "), réessayez dans "
+            + retryAfterSeconds + "s", retryAfterSeconds);
+    }
+}
@@ -1,6 +1,8 @@
 package org.mql.ai.business;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.mql.ai.models.DocumentMetadata;
@@ -8,12 +10,21 @@ import org.mql.ai.models.DocumentMetadata;
 public interface PDFLoaderService {
 	List<DocumentMetadata> loadAllPDFs();
 	DocumentMetadata loadPDF(Path pdfPath);
+	boolean refreshPDF(Path pdfPath);
+	boolean removePDF(String fileName);
 	List<DocumentMetadata> loadSpecificPDFs(List<String> pdfNames);
-	DocumentMetadata uploadAndIndexPDF(byte[] fileContent, String fileName);
+	DocumentMetadata uploadAndIndexPDF(InputStream content, String fileName);
+	Path saveUploadedPDF(InputStream content, String fileName);
+	Path saveUploadedPDF(Path uploadedFile, String fileName);
+	DocumentMetadata indexUploadedPDF(Path pdfPath, IngestionListener listener);
+	void requireUploadable(String fileName);
+	void releaseUpload(String fileName);
 	boolean isPDFIndexed(String fileName);
 	int getIndexedFilesCount();
     Set<String> getIndexedFileNames();
     List<DocumentMetadata> getIndexedDocumentsMetadata();
+    Map<String, Map<String, Object>> getIngestionStats();
     
     List<DocumentMetadata> forceReindexAll();
+    void initializeIndex(IngestionListener listener);
 }
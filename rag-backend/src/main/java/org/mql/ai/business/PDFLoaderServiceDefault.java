@@ -1,32 +1,52 @@
 package org.mql.ai.business;
 
 import dev.langchain4j.data.document.Document;
-import dev.langchain4j.data.document.DocumentSplitter;
-import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
-import dev.langchain4j.data.document.splitter.DocumentSplitters;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
-import dev.langchain4j.store.embedding.EmbeddingSearchResult;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.mql.ai.business.PageAwareSplitter.Page;
 import org.mql.ai.exceptions.PDFLoadException;
+import org.mql.ai.exceptions.UploadRejectedException;
+import org.mql.ai.exceptions.UploadRejectedException.Reason;
 import org.mql.ai.models.DocumentMetadata;
+import org.mql.ai.store.HnswEmbeddingStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
-import java.io.ByteArrayInputStream;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
 
 @Service
 public class PDFLoaderServiceDefault implements PDFLoaderService {
@@ -38,30 +58,96 @@ public class PDFLoaderServiceDefault implements PDFLoaderService {
     private final int chunkOverlap;
     private final EmbeddingService embeddingService;
     private final EmbeddingStore<TextSegment> embeddingStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IngestionManifest manifest;
+    private final LexicalIndex lexicalIndex;
+    private final EmbeddingDiskCache diskCache;
+    private final boolean verifyStore;
+    
+    private Embedding probeEmbedding;
     
-    private final Set<String> indexedFiles = ConcurrentHashMap.newKeySet();
-    private final Map<String, DocumentMetadata> documentsCache = new ConcurrentHashMap<>();
+    private final int parseThreads;
+    private final int splitThreads;
+    private final int embedThreads;
+    private final int storeThreads;
+    private final int queueCapacity;
+    private final int embeddingBatchSize;
+    private final long pdfMaxMainMemory;
+    private final int pageWindow;
+    private final PageAwareSplitter pageSplitter;
+    private final int parallelMinPages;
+    private final int extractionThreads;
+    private final ExecutorService extractionExecutor;
+    private final String embeddingModelId;
+    private final RagMetrics metrics;
+    
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, Map<String, Object>> lastIngestionStats = Map.of();
     
     public PDFLoaderServiceDefault(
             @Value("${rag.courses-directory}") String coursesDirectory,
             @Value("${rag.chunk-size}") int chunkSize,
             @Value("${rag.chunk-overlap}") int chunkOverlap,
+            @Value("${rag.manifest.verify-store:false}") boolean verifyStore,
+            @Value("${rag.ingestion.parse-threads:0}") int parseThreads,
+            @Value("${rag.ingestion.split-threads:1}") int splitThreads,
+            @Value("${rag.ingestion.embed-threads:4}") int embedThreads,
+            @Value("${rag.ingestion.store-threads:2}") int storeThreads,
+            @Value("${rag.ingestion.queue-capacity:8}") int queueCapacity,
+            @Value("${rag.ingestion.batch-size:64}") int embeddingBatchSize,
+            @Value("${rag.ingestion.pdf-max-memory-mb:16}") int pdfMaxMemoryMb,
+            @Value("${rag.ingestion.page-window:16}") int pageWindow,
+            @Value("${rag.ingestion.parallel-extraction.min-pages:64}") int parallelMinPages,
+            @Value("${rag.ingestion.parallel-extraction.threads:0}") int extractionThreads,
+            @Value("${rag.embedding.model-id:${ollama.embedding.model}}") String embeddingModelId,
             EmbeddingService embeddingService,
-            EmbeddingStore<TextSegment> embeddingStore) {
+            EmbeddingStore<TextSegment> embeddingStore,
+            ApplicationEventPublisher eventPublisher,
+            IngestionManifest manifest,
+            LexicalIndex lexicalIndex,
+            EmbeddingDiskCache diskCache,
+            RagMetrics metrics) {
         this.coursesDirectory = coursesDirectory;
         this.chunkSize = chunkSize;
         this.chunkOverlap = chunkOverlap;
         this.embeddingService = embeddingService;
         this.embeddingStore = embeddingStore;
+        this.eventPublisher = eventPublisher;
+        this.manifest = manifest;
+        this.lexicalIndex = lexicalIndex;
+        this.diskCache = diskCache;
+        this.metrics = metrics;
+        // index HNSW local : vérification peu coûteuse, protège d'un snapshot plus ancien que le manifeste
+        this.verifyStore = verifyStore || embeddingStore instanceof HnswEmbeddingStore;
+        this.parseThreads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        this.splitThreads = splitThreads;
+        this.embedThreads = embedThreads;
+        this.storeThreads = storeThreads;
+        this.queueCapacity = queueCapacity;
+        this.embeddingBatchSize = Math.max(1, embeddingBatchSize);
+        this.pdfMaxMainMemory = Math.max(0, pdfMaxMemoryMb) * 1024L * 1024L;
+        this.pageWindow = Math.max(1, pageWindow);
+        this.pageSplitter = new PageAwareSplitter(chunkSize, chunkOverlap);
+        this.parallelMinPages = parallelMinPages;
+        this.extractionThreads = extractionThreads > 0 ? extractionThreads : Runtime.getRuntime().availableProcessors();
+        // pas de pool borné : chaque extracteur d'un document doit démarrer, sinon le lecteur attendrait une fenêtre jamais produite
+        AtomicInteger extractorCount = new AtomicInteger();
+        this.extractionExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "pdf-extract-" + extractorCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.embeddingModelId = embeddingModelId;
         
         logger.info(" Répertoire des cours: {}", coursesDirectory);
         logger.info(" Taille des chunks: {} (overlap: {})", chunkSize, chunkOverlap);
     }
     
     
-    // Détecte les PDFs et indexe ceux qui ne sont pas dans ChromaDB
-    @PostConstruct
-    public void initializeIndex() {
+    // Réconcilie les PDFs du répertoire avec le manifeste d'ingestion et indexe ce qui manque
+    // (lancé en arrière-plan par StartupIndexer, l'index existant reste interrogeable pendant ce temps)
+    @Override
+    public void initializeIndex(IngestionListener listener) {
         logger.info(" Initialisation de l'index au démarrage...");
         
         try {
@@ -80,50 +166,60 @@ public class PDFLoaderServiceDefault implements PDFLoaderService {
             
             logger.info(" {} fichiers PDF détectés dans le répertoire", pdfFiles.size());
             
+            removeDeletedFromManifest(pdfFiles);
+            lexicalIndex.retainOnly(manifest.getAll().stream()
+                .flatMap(entry -> entry.getChunkIds().stream())
+                .collect(Collectors.toSet()));
+            compactEmbeddingCache();
+            
             if (pdfFiles.isEmpty()) {
                 logger.info(" Index initialisé (aucun document à traiter)");
                 return;
             }
             
             int alreadyIndexed = 0;
-            int newlyIndexed = 0;
+            List<DocumentIngestion> toIndex = new ArrayList<>();
             
             for (Path pdfPath : pdfFiles) {
                 String fileName = pdfPath.getFileName().toString();
                 
-                if (isReallyIndexedInChroma(fileName)) {
-                    alreadyIndexed++;
-                    indexedFiles.add(fileName);
+                // même réservation que refreshPDF : le watcher ne traite pas ce fichier en parallèle
+                if (!inProgress.add(fileName)) {
+                    logger.info(" {} déjà pris en charge par le watcher", fileName);
+                    continue;
+                }
+                
+                try {
+                    Optional<IngestionManifest.Entry> entry = upToDateEntry(pdfPath);
                     
-                    try {
-                        long fileSize = Files.size(pdfPath);
-                        int chunkCount = getChunkCountFromChroma(fileName);
-                        
-                        DocumentMetadata metadata = new DocumentMetadata(fileName, pdfPath.toString());
-                        metadata.setId(UUID.randomUUID().toString());
-                        metadata.setFileSize(fileSize);
-                        metadata.setNumberOfChunks(chunkCount);
-                        metadata.setIndexed(true);
-                        metadata.setIndexDate(LocalDateTime.now());
-                        documentsCache.put(fileName, metadata);
-                        
-                        logger.debug(" {} déjà indexé ({} chunks)", fileName, chunkCount);
-                    } catch (IOException e) {
-                        logger.warn(" Impossible de lire les métadonnées de: {}", fileName);
-                    }
-                } else {
-                    logger.info(" Indexation de: {}", fileName);
-                    DocumentMetadata metadata = loadPDF(pdfPath);
-                    if (metadata != null) {
-                        newlyIndexed++;
+                    if (entry.isPresent()) {
+                        inProgress.remove(fileName);
+                        alreadyIndexed++;
+                        logger.debug(" {} déjà indexé ({} chunks)", fileName, entry.get().getChunkCount());
+                        continue;
                     }
+                } catch (IOException e) {
+                    logger.warn(" Impossible de lire les métadonnées de: {}", fileName);
+                }
+                
+                logger.info(" À indexer: {}", fileName);
+                toIndex.add(new DocumentIngestion(pdfPath, listener));
+                try {
+                    removeStaleVectors(fileName);
+                } catch (RuntimeException e) {
+                    toIndex.forEach(doc -> inProgress.remove(doc.fileName));
+                    throw e;
                 }
             }
             
+            listener.onQueued(toIndex.size());
+            // réservations conservées jusqu'à la fin du pipeline, qui les libère
+            int newlyIndexed = runPipeline(toIndex).size();
+            
             logger.info(" Initialisation terminée:");
             logger.info("   - {} documents déjà indexés", alreadyIndexed);
             logger.info("   - {} documents nouvellement indexés", newlyIndexed);
-            logger.info("   - {} documents au total", indexedFiles.size());
+            logger.info("   - {} documents au total", manifest.size());
             
         } catch (IOException e) {
             logger.error(" Erreur lors de l'initialisation de l'index", e);
@@ -131,63 +227,142 @@ public class PDFLoaderServiceDefault implements PDFLoaderService {
     }
     
     
-    // vérifie si un document est vraiment dans ChromaDB
-    private boolean isReallyIndexedInChroma(String fileName) {
+    // entrée du manifeste si le fichier n'a pas changé depuis son indexation
+    private Optional<IngestionManifest.Entry> upToDateEntry(Path pdfPath) throws IOException {
+        String fileName = pdfPath.getFileName().toString();
+        Optional<IngestionManifest.Entry> found = manifest.get(fileName);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        IngestionManifest.Entry entry = found.get();
+        long size = Files.size(pdfPath);
+        long modified = Files.getLastModifiedTime(pdfPath).toMillis();
+        
+        if (!entry.matches(size, modified)) {
+            // date modifiée (copie, checkout...) : on ne relit le contenu qu'à ce moment-là
+            if (!IngestionManifest.hash(pdfPath).equals(entry.getContentHash())) {
+                logger.info(" {} a changé depuis son indexation", fileName);
+                return Optional.empty();
+            }
+            entry.setFileSize(size);
+            entry.setLastModified(modified);
+            manifest.put(entry);
+        }
+        
+        // vecteurs d'un autre modèle : espaces incompatibles, tout le document est réindexé
+        if (!embeddingModelId.equals(entry.getEmbeddingModel())) {
+            logger.info(" {} indexé avec un autre modèle d'embedding ({})", fileName, entry.getEmbeddingModel());
+            return Optional.empty();
+        }
+        
+        if (verifyStore && !isIndexedInStore(entry)) {
+            logger.warn(" {} absent ou incomplet dans le vector store", fileName);
+            return Optional.empty();
+        }
+        
+        if (!lexicalIndex.containsAll(entry.getChunkIds())) {
+            logger.info(" {} absent de l'index lexical", fileName);
+            return Optional.empty();
+        }
+        
+        return Optional.of(entry);
+    }
+    
+    
+    // vérification exacte : compte les chunks du fichier via un filtre sur les métadonnées
+    private boolean isIndexedInStore(IngestionManifest.Entry entry) {
         try {
-            Embedding testEmbedding = embeddingService.embedText("test");
+            if (probeEmbedding == null) {
+                probeEmbedding = embeddingService.embedText("verification");
+            }
             
             EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
-                .queryEmbedding(testEmbedding)
-                .maxResults(50) 
-                .minScore(0.0) 
+                .queryEmbedding(probeEmbedding)
+                .maxResults(Math.max(1, entry.getChunkCount()))
+                .minScore(0.0)
+                .filter(metadataKey("file_name").isEqualTo(entry.getFileName()))
                 .build();
             
-            EmbeddingSearchResult<TextSegment> result = embeddingStore.search(request);
-            
-            
-            boolean found = result.matches().stream()
-                .anyMatch(match -> {
-                    String segmentFileName = match.embedded().metadata().getString("file_name");
-                    return fileName.equals(segmentFileName);
-                });
-            
-            return found;
+            int found = embeddingStore.search(request).matches().size();
+            return found == entry.getChunkCount();
             
         } catch (Exception e) {
-            logger.debug(" Erreur vérification ChromaDB pour {}: {}", fileName, e.getMessage());
+            logger.debug(" Erreur vérification du store pour {}: {}", entry.getFileName(), e.getMessage());
             return false;
         }
     }
     
     
-    // Compte le nombre de chunks d'un fichier dans ChromaDB
-    private int getChunkCountFromChroma(String fileName) {
+    // supprime du store les chunks d'une version précédente du fichier
+    private void removeStaleVectors(String fileName) {
+        Optional<IngestionManifest.Entry> entry = manifest.remove(fileName);
+        
+        if (entry.isPresent()) {
+            List<String> chunkIds = entry.get().getChunkIds();
+            if (!chunkIds.isEmpty()) {
+                removeChunks(chunkIds);
+                logger.info(" {} anciens chunks supprimés pour {}", chunkIds.size(), fileName);
+            }
+            eventPublisher.publishEvent(new DocumentIndexChangedEvent(fileName, chunkIds));
+            return;
+        }
+        
+        // index construit avant le manifeste : ids inconnus, suppression par métadonnée
+        lexicalIndex.removeFile(fileName);
         try {
-            Embedding testEmbedding = embeddingService.embedText("test");
-            
-            EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
-                .queryEmbedding(testEmbedding)
-                .maxResults(1000) 
-                .minScore(0.0)
-                .build();
-            
-            EmbeddingSearchResult<TextSegment> result = embeddingStore.search(request);
-            
-            long count = result.matches().stream()
-                .filter(match -> {
-                    String segmentFileName = match.embedded().metadata().getString("file_name");
-                    return fileName.equals(segmentFileName);
-                })
-                .count();
-            
-            return (int) count;
-            
+            embeddingStore.removeAll(metadataKey("file_name").isEqualTo(fileName));
         } catch (Exception e) {
-            logger.debug(" Impossible de compter les chunks de {}", fileName);
-            return 0;
+            logger.debug(" Suppression par filtre impossible pour {}: {}", fileName, e.getMessage());
         }
     }
-
+    
+    
+    // vector store et index lexical
+    private void removeChunks(List<String> chunkIds) {
+        embeddingStore.removeAll(chunkIds);
+        lexicalIndex.remove(chunkIds);
+    }
+    
+    
+    // fichiers du manifeste qui ne sont plus sur disque
+    private void removeDeletedFromManifest(List<Path> pdfFiles) {
+        Set<String> present = pdfFiles.stream()
+            .map(path -> path.getFileName().toString())
+            .collect(Collectors.toSet());
+        
+        for (IngestionManifest.Entry entry : manifest.getAll()) {
+            String fileName = entry.getFileName();
+            if (present.contains(fileName) || !inProgress.add(fileName)) {
+                continue;
+            }
+            try {
+                logger.info(" {} n'existe plus sur disque, suppression de ses vecteurs", fileName);
+                removeStaleVectors(fileName);
+            } finally {
+                inProgress.remove(fileName);
+            }
+        }
+    }
+    
+    
+    private DocumentMetadata toMetadata(IngestionManifest.Entry entry, Path pdfPath) {
+        DocumentMetadata metadata = new DocumentMetadata(entry.getFileName(), pdfPath.toString());
+        metadata.setId(entry.getDocumentId());
+        metadata.setFileSize(entry.getFileSize());
+        metadata.setNumberOfChunks(entry.getChunkCount());
+        metadata.setIndexed(true);
+        metadata.setIndexDate(entry.getIndexDate());
+        return metadata;
+    }
+    
+    
+    // id dérivé du nom : le même document garde son id d'une réindexation à l'autre
+    private static String documentId(String fileName) {
+        return UUID.nameUUIDFromBytes(("document:" + fileName).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+    
+    
     @Override
     public List<DocumentMetadata> loadAllPDFs() {
         logger.info(" Chargement de tous les PDFs...");
@@ -201,13 +376,13 @@ public class PDFLoaderServiceDefault implements PDFLoaderService {
                 return new ArrayList<>();
             }
             
-            List<DocumentMetadata> documents = Files.list(coursesPath)
+            List<Path> pdfFiles = Files.list(coursesPath)
                 .filter(path -> path.toString().toLowerCase().endsWith(".pdf"))
-                .filter(path -> !indexedFiles.contains(path.getFileName().toString()))
-                .map(this::loadPDF)
-                .filter(doc -> doc != null)
+                .filter(path -> !manifest.contains(path.getFileName().toString()))
                 .collect(Collectors.toList());
             
+            List<DocumentMetadata> documents = ingest(pdfFiles, IngestionListener.NONE);
+            
             logger.info(" {} PDFs chargés avec succès", documents.size());
             return documents;
             
@@ -221,61 +396,402 @@ public class PDFLoaderServiceDefault implements PDFLoaderService {
     public DocumentMetadata loadPDF(Path pdfPath) {
         String fileName = pdfPath.getFileName().toString();
         
-        if (indexedFiles.contains(fileName)) {
+        Optional<IngestionManifest.Entry> indexed = manifest.get(fileName);
+        if (indexed.isPresent()) {
             logger.info(" PDF déjà indexé: {}", fileName);
-            return documentsCache.get(fileName);
+            return toMetadata(indexed.get(), pdfPath);
         }
         
-        logger.info(" Chargement du PDF: {}", fileName);
+        List<DocumentMetadata> documents = ingest(List.of(pdfPath), IngestionListener.NONE);
+        return documents.isEmpty() ? null : documents.get(0);
+    }
+
+    
+    // parse -> découpage -> embedding par lots -> stockage, chaque étage avec ses threads
+    private List<DocumentMetadata> ingest(List<Path> pdfPaths, IngestionListener listener) {
+        List<DocumentIngestion> documents = new ArrayList<>();
+        for (Path pdfPath : pdfPaths) {
+            String fileName = pdfPath.getFileName().toString();
+            if (manifest.contains(fileName)) {
+                logger.info(" PDF déjà indexé: {}", fileName);
+                listener.onFinished(true);
+            } else if (!inProgress.add(fileName)) {
+                logger.info(" PDF déjà en cours d'indexation: {}", fileName);
+                listener.onFinished(false);
+            } else {
+                documents.add(new DocumentIngestion(pdfPath, listener));
+            }
+        }
+        
+        return runPipeline(documents);
+    }
+
+    
+    // les documents doivent déjà être réservés dans inProgress, libérés à la fin
+    private List<DocumentMetadata> runPipeline(List<DocumentIngestion> documents) {
+        if (documents.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        logger.info(" Ingestion de {} PDFs (parse={}, split={}, embed={}, store={}, file={})",
+            documents.size(), parseThreads, splitThreads, embedThreads, storeThreads, queueCapacity);
         
+        IngestionPipeline pipeline = new IngestionPipeline("ingestion", queueCapacity)
+            .<DocumentIngestion, PageWindow>stage("parse", parseThreads, this::parseStage)
+            .<PageWindow, SegmentBatch>stage("split", splitThreads, this::splitStage)
+            .<SegmentBatch, EmbeddedBatch>stage("embed", embedThreads, this::embedStage)
+            .<EmbeddedBatch, Void>stage("store", storeThreads, this::storeStage)
+            .observeItems(metrics::recordIngestionStage);
         try {
-            byte[] fileContent = Files.readAllBytes(pdfPath);
-            logger.debug(" Taille du fichier: {} octets", fileContent.length);
-            
-            ApachePdfBoxDocumentParser parser = new ApachePdfBoxDocumentParser();
-            Document document = parser.parse(new ByteArrayInputStream(fileContent));
-            logger.debug(" Document parsé avec succès");
-           
-            DocumentSplitter splitter = DocumentSplitters.recursive(
-                chunkSize, 
-                chunkOverlap
-            );
-            List<TextSegment> segments = splitter.split(document);
-            logger.debug(" Document découpé en {} segments", segments.size());
+            pipeline.run(documents);
+            lastIngestionStats = pipeline.getStats();
+        } finally {
+            documents.forEach(doc -> inProgress.remove(doc.fileName));
+        }
+        
+        // publié depuis le thread appelant : un thread du pipeline bloquerait sur le verrou des
+        // singletons Spring si l'ingestion est lancée pendant la création du contexte
+        documents.stream()
+            .filter(doc -> doc.result != null)
+            .forEach(doc -> eventPublisher.publishEvent(new DocumentIndexChangedEvent(doc.fileName)));
+        
+        return documents.stream()
+            .map(doc -> doc.result)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    
+    private void parseStage(DocumentIngestion doc, Consumer<PageWindow> emit) {
+        logger.info(" Chargement du PDF: {}", doc.fileName);
+        try {
+            doc.fileSize = Files.size(doc.path);
+            logger.debug(" Taille du fichier: {} octets", doc.fileSize);
+            doc.contentHash = IngestionManifest.hash(doc.path);
             
-            for (int i = 0; i < segments.size(); i++) {
-                TextSegment segment = segments.get(i);
-                segment.metadata().put("file_name", fileName);
-                segment.metadata().put("source", pdfPath.toString());
-                segment.metadata().put("chunk_index", String.valueOf(i));
+            // chaque fenêtre part au découpage pendant l'extraction des suivantes
+            boolean hasText = readPages(doc.path, pages -> emit.accept(
+                new PageWindow(doc, doc.windowsRead++, pages, false)));
+            if (!hasText) {
+                throw new PDFLoadException("Le PDF '" + doc.fileName + "' ne contient pas de texte");
             }
-            logger.debug(" Métadonnées ajoutées à {} segments", segments.size());
-            
-            logger.debug(" Stockage des embeddings dans ChromaDB...");
-            embeddingService.storeEmbeddings(segments);
-            logger.debug(" Embeddings stockés avec succès");
-            
-            DocumentMetadata metadata = new DocumentMetadata(
-                fileName,
-                pdfPath.toString()
-            );
-            metadata.setId(UUID.randomUUID().toString());
-            metadata.setFileSize(fileContent.length);
-            metadata.setNumberOfChunks(segments.size());
-            metadata.setIndexed(true);
-            metadata.setIndexDate(LocalDateTime.now());
-            
-            indexedFiles.add(fileName);
-            documentsCache.put(fileName, metadata);
+            logger.debug(" Document parsé avec succès ({} fenêtres de pages)", doc.windowsRead);
+        } catch (Exception e) {
+            doc.fail(e);
+        } finally {
+            // fenêtre finale vide : le découpage sait que tous les lots du document sont émis
+            emit.accept(new PageWindow(doc, doc.windowsRead, List.of(), true));
+        }
+    }
+
+    
+    // extraction page par page : seul le texte de la fenêtre courante (rag.ingestion.page-window) est en mémoire ;
+    // PDFBox déborde sur des fichiers temporaires au-delà de pdf-max-memory-mb
+    boolean readPages(Path pdfPath, Consumer<List<Page>> window) throws IOException {
+        int pageCount;
+        int workers;
+        try (PDDocument pdf = PDDocument.load(pdfPath.toFile(), memoryUsage())) {
+            pageCount = pdf.getNumberOfPages();
+            int windows = (pageCount + pageWindow - 1) / pageWindow;
+            workers = Math.min(extractionThreads, windows);
             
-            logger.info(" PDF indexé: {} ({} chunks)", fileName, segments.size());
+            if (pageCount < parallelMinPages || workers <= 1) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                boolean hasText = false;
+                for (int from = 1; from <= pageCount; from += pageWindow) {
+                    List<Page> pages = extractPages(pdf, stripper, from, Math.min(pageCount, from + pageWindow - 1));
+                    hasText |= hasText(pages);
+                    window.accept(pages);
+                }
+                return hasText;
+            }
+        }
+        
+        logger.info(" Extraction parallèle de {} ({} pages, {} extracteurs)", pdfPath.getFileName(), pageCount, workers);
+        return readPagesInParallel(pdfPath, pageCount, workers, window);
+    }
+
+    
+    /**
+     * Gros PDF : fenêtres réparties en alternance entre les extracteurs (fenêtres j, j+n, j+2n...),
+     * chacun avec son propre PDDocument (PDFBox n'est pas thread-safe). Le thread appelant les reprend
+     * dans l'ordre des pages ; chaque extracteur n'a que deux fenêtres d'avance, la mémoire reste bornée.
+     */
+    private boolean readPagesInParallel(Path pdfPath, int pageCount, int workers, Consumer<List<Page>> window)
+            throws IOException {
+        int windows = (pageCount + pageWindow - 1) / pageWindow;
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<BlockingQueue<ExtractedWindow>> queues = new ArrayList<>();
+        List<Future<?>> extractors = new ArrayList<>();
+        
+        for (int worker = 0; worker < workers; worker++) {
+            BlockingQueue<ExtractedWindow> queue = new ArrayBlockingQueue<>(2);
+            queues.add(queue);
+            int first = worker;
+            extractors.add(extractionExecutor.submit(() -> {
+                try (PDDocument pdf = PDDocument.load(pdfPath.toFile(), memoryUsage())) {
+                    PDFTextStripper stripper = new PDFTextStripper();
+                    for (int index = first; index < windows && !cancelled.get(); index += workers) {
+                        int from = index * pageWindow + 1;
+                        List<Page> pages = extractPages(pdf, stripper, from, Math.min(pageCount, from + pageWindow - 1));
+                        deliver(queue, new ExtractedWindow(pages, null), cancelled);
+                    }
+                } catch (Exception e) {
+                    deliver(queue, new ExtractedWindow(null, e), cancelled);
+                }
+                return null;
+            }));
+        }
+        
+        boolean hasText = false;
+        try {
+            for (int index = 0; index < windows; index++) {
+                ExtractedWindow extracted = queues.get(index % workers).take();
+                if (extracted.error() instanceof IOException e) {
+                    throw e;
+                }
+                if (extracted.error() != null) {
+                    throw new PDFLoadException("Extraction de '" + pdfPath.getFileName() + "' impossible: "
+                        + extracted.error().getMessage(), extracted.error());
+                }
+                hasText |= hasText(extracted.pages());
+                window.accept(extracted.pages());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Extraction interrompue: " + pdfPath.getFileName(), e);
+        } finally {
+            cancelled.set(true);
+            extractors.forEach(extractor -> extractor.cancel(true));
+        }
+        return hasText;
+    }
+
+    
+    private static List<Page> extractPages(PDDocument pdf, PDFTextStripper stripper, int from, int to)
+            throws IOException {
+        List<Page> pages = new ArrayList<>(to - from + 1);
+        for (int number = from; number <= to; number++) {
+            stripper.setStartPage(number);
+            stripper.setEndPage(number);
+            pages.add(new Page(number, stripper.getText(pdf)));
+        }
+        return pages;
+    }
+
+    
+    private static boolean hasText(List<Page> pages) {
+        return pages.stream().anyMatch(page -> !page.text().isBlank());
+    }
+
+    
+    // attente bornée : le lecteur a pu abandonner (erreur) et ne videra plus la file
+    private static void deliver(BlockingQueue<ExtractedWindow> queue, ExtractedWindow extracted, AtomicBoolean cancelled) {
+        try {
+            while (!cancelled.get()) {
+                if (queue.offer(extracted, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    
+    private MemoryUsageSetting memoryUsage() {
+        return pdfMaxMainMemory > 0
+            ? MemoryUsageSetting.setupMixed(pdfMaxMainMemory)
+            : MemoryUsageSetting.setupTempFileOnly();
+    }
+
+    
+    @PreDestroy
+    public void shutdown() {
+        extractionExecutor.shutdownNow();
+    }
+
+    
+    // texte complet du PDF (benchmarks d'extraction)
+    Document parsePDF(Path pdfPath) throws IOException {
+        StringBuilder text = new StringBuilder();
+        boolean hasText = readPages(pdfPath, pages -> pages.forEach(page -> text.append(page.text())));
+        if (!hasText) {
+            throw new PDFLoadException("Le PDF '" + pdfPath.getFileName() + "' ne contient pas de texte");
+        }
+        return Document.from(text.toString());
+    }
+
+    
+    private void splitStage(PageWindow window, Consumer<SegmentBatch> emit) {
+        DocumentIngestion doc = window.doc();
+        List<TextSegment> segments = List.of();
+        try {
+            if (!doc.failed) {
+                segments = pageSplitter.split(window.pages());
+            }
+        } catch (RuntimeException e) {
+            doc.fail(e);
+        }
+        
+        synchronized (doc) {
+            // fenêtres découpées en parallèle : numérotation des chunks dans l'ordre des pages
+            doc.splitWindows.put(window.index(), new SplitWindow(segments, window.last()));
+            SplitWindow next;
+            while ((next = doc.splitWindows.remove(doc.nextWindow)) != null) {
+                doc.nextWindow++;
+                for (TextSegment segment : next.segments()) {
+                    segment.metadata().put("file_name", doc.fileName);
+                    segment.metadata().put("source", doc.path.toString());
+                    segment.metadata().put("chunk_index", String.valueOf(doc.chunkCount++));
+                    doc.pendingSegments.add(segment);
+                }
+                if (!next.segments().isEmpty()) {
+                    doc.listener.onChunksSplit(doc.chunkCount);
+                }
+                emitBatches(doc, next.last(), emit);
+                if (next.last()) {
+                    logger.debug(" Document découpé en {} segments", doc.chunkCount);
+                    doc.allBatchesEmitted = true;
+                }
+            }
+        }
+        finishIfComplete(doc);
+    }
+
+    
+    // lots d'embedding pleins répartis entre les threads de l'étage suivant, le reste à la dernière fenêtre
+    private void emitBatches(DocumentIngestion doc, boolean last, Consumer<SegmentBatch> emit) {
+        while (doc.pendingSegments.size() >= embeddingBatchSize
+                || (last && !doc.pendingSegments.isEmpty())) {
+            int size = Math.min(embeddingBatchSize, doc.pendingSegments.size());
+            List<TextSegment> batch = new ArrayList<>(doc.pendingSegments.subList(0, size));
+            doc.pendingSegments.subList(0, size).clear();
+            emit.accept(new SegmentBatch(doc, doc.batchesEmitted.getAndIncrement(), batch));
+        }
+    }
+
+    
+    private void embedStage(SegmentBatch batch, Consumer<EmbeddedBatch> emit) {
+        DocumentIngestion doc = batch.doc();
+        if (doc.failed) {
+            batchDone(doc, batch.index(), List.of());
+            return;
+        }
+        try {
+            List<Embedding> embeddings = embeddingService.embedSegments(batch.segments());
+            doc.listener.onChunksEmbedded(embeddings.size());
+            emit.accept(new EmbeddedBatch(doc, batch.index(), batch.segments(), embeddings));
+        } catch (RuntimeException e) {
+            doc.fail(e);
+            batchDone(doc, batch.index(), List.of());
+        }
+    }
+
+    
+    private void storeStage(EmbeddedBatch batch, Consumer<Void> emit) {
+        DocumentIngestion doc = batch.doc();
+        List<String> chunkIds = List.of();
+        try {
+            if (!doc.failed) {
+                chunkIds = embeddingService.storeEmbeddings(batch.segments(), batch.embeddings());
+                lexicalIndex.add(chunkIds, batch.segments());
+                if (diskCache.isEnabled()) {
+                    doc.chunkHashesByBatch.put(batch.index(), batch.segments().stream()
+                        .map(segment -> diskCache.keyOf(segment.text()))
+                        .collect(Collectors.toList()));
+                }
+            }
+        } catch (RuntimeException e) {
+            doc.fail(e);
+        } finally {
+            batchDone(doc, batch.index(), chunkIds);
+        }
+    }
+
+    
+    private void batchDone(DocumentIngestion doc, int batchIndex, List<String> chunkIds) {
+        doc.chunkIdsByBatch.put(batchIndex, chunkIds);
+        doc.batchesDone.incrementAndGet();
+        finishIfComplete(doc);
+    }
+
+    
+    // appelé par le dernier étage qui termine un lot du document (une seule fois grâce au CAS)
+    private void finishIfComplete(DocumentIngestion doc) {
+        if (!doc.allBatchesEmitted
+                || doc.batchesDone.get() != doc.batchesEmitted.get()
+                || !doc.finished.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            register(doc);
+        } finally {
+            doc.listener.onFinished(doc.result != null);
+        }
+    }
+    
+    
+    // vecteurs en cache des seuls chunks encore indexés ; une entrée sans chunkHashes (indexée
+    // avant leur ajout) empêche la compaction, ses vecteurs seraient perdus à tort
+    private void compactEmbeddingCache() {
+        if (!diskCache.isEnabled()) {
+            return;
+        }
+        Set<String> liveKeys = new HashSet<>();
+        for (IngestionManifest.Entry entry : manifest.getAll()) {
+            if (entry.getChunkHashes() == null) {
+                logger.info(" Compaction du cache d'embeddings reportée: {} sans clés de cache", entry.getFileName());
+                return;
+            }
+            liveKeys.addAll(entry.getChunkHashes());
+        }
+        diskCache.retainOnly(liveKeys);
+    }
+    
+    
+    // manifeste si tous les lots sont stockés, sinon retrait des lots déjà stockés
+    private void register(DocumentIngestion doc) {
+        List<String> chunkIds = doc.chunkIdsByBatch.values().stream()
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+        
+        if (doc.failed) {
+            logger.error(" Erreur lors du chargement de {}: {}", 
+                        doc.fileName, doc.error.getMessage(), doc.error);
+            metrics.recordError("ingestion", doc.error);
+            if (!chunkIds.isEmpty()) {
+                // pas d'index partiel : les lots déjà stockés sont retirés
+                removeChunks(chunkIds);
+            }
+            return;
+        }
+        
+        try {
+            IngestionManifest.Entry entry = new IngestionManifest.Entry();
+            entry.setFileName(doc.fileName);
+            entry.setDocumentId(documentId(doc.fileName));
+            entry.setContentHash(doc.contentHash);
+            entry.setFileSize(doc.fileSize);
+            entry.setLastModified(Files.getLastModifiedTime(doc.path).toMillis());
+            entry.setChunkCount(doc.chunkCount);
+            entry.setChunkIds(chunkIds);
+            if (diskCache.isEnabled()) {
+                entry.setChunkHashes(doc.chunkHashesByBatch.values().stream()
+                    .flatMap(List::stream)
+                    .collect(Collectors.toList()));
+            }
+            entry.setEmbeddingModel(embeddingModelId);
+            entry.setIndexDate(LocalDateTime.now());
+            manifest.put(entry);
             
-            return metadata;
+            doc.result = toMetadata(entry, doc.path);
             
-        } catch (Exception e) {
-            logger.error(" Erreur lors du chargement de {}: {}", 
-                        fileName, e.getMessage(), e);
-            return null;
+            logger.info(" PDF indexé: {} ({} chunks)", doc.fileName, doc.chunkCount);
+        } catch (IOException | RuntimeException e) {
+            logger.error(" Erreur lors de l'enregistrement de {}: {}", doc.fileName, e.getMessage(), e);
+            removeChunks(chunkIds);
         }
     }
 
@@ -307,12 +823,70 @@ public class PDFLoaderServiceDefault implements PDFLoaderService {
     }
 
     @Override
-    public DocumentMetadata uploadAndIndexPDF(byte[] fileContent, String fileName) {
-        logger.info(" Upload et indexation de: {}", fileName);
+    public DocumentMetadata uploadAndIndexPDF(InputStream content, String fileName) {
+        return indexUploadedPDF(saveUploadedPDF(content, fileName), IngestionListener.NONE);
+    }
+
+    @Override
+    public Path saveUploadedPDF(InputStream content, String fileName) {
+        logger.info(" Upload de: {}", fileName);
+        return storeUpload(fileName, target -> Files.copy(content, target, StandardCopyOption.REPLACE_EXISTING));
+    }
+
+    @Override
+    public Path saveUploadedPDF(Path uploadedFile, String fileName) {
+        logger.info(" Upload assemblé de: {} ({})", fileName, uploadedFile);
+        return storeUpload(fileName, target -> Files.move(uploadedFile, target, StandardCopyOption.REPLACE_EXISTING));
+    }
+
+    // nom fourni par le client : un chemin ("../x.pdf", "a/b.pdf") sortirait du répertoire des cours
+    static void requirePlainFileName(String fileName) {
+        Path name;
+        try {
+            name = fileName == null ? null : Paths.get(fileName).getFileName();
+        } catch (InvalidPathException e) {
+            name = null;
+        }
+        if (name == null || !name.toString().equals(fileName) || fileName.startsWith(".")) {
+            throw new UploadRejectedException(Reason.INVALID,
+                "Nom de fichier invalide: " + fileName);
+        }
+    }
+
+    @FunctionalInterface
+    private interface UploadWriter {
+        void writeTo(Path target) throws IOException;
+    }
+
+    // vérifié dès le début d'un upload découpé, avant que le client n'envoie le contenu
+    @Override
+    public void requireUploadable(String fileName) {
+        requirePlainFileName(fileName);
         
-        if (indexedFiles.contains(fileName)) {
+        if (manifest.contains(fileName)) {
             logger.warn(" Le fichier {} est déjà indexé", fileName);
-            throw new PDFLoadException("Le document '" + fileName + "' est déjà indexé dans la base de données");
+            throw new UploadRejectedException(Reason.CONFLICT,
+                "Le document '" + fileName + "' est déjà indexé dans la base de données");
+        }
+        if (inProgress.contains(fileName)) {
+            throw new UploadRejectedException(Reason.CONFLICT,
+                "Le document '" + fileName + "' est déjà en cours d'indexation");
+        }
+        if (Files.exists(Paths.get(coursesDirectory).resolve(fileName))) {
+            logger.warn(" Le fichier {} existe déjà sur disque", fileName);
+            throw new UploadRejectedException(Reason.CONFLICT, "Le fichier '" + fileName + "' existe déjà");
+        }
+    }
+    
+    // le fichier est écrit à côté puis renommé : le watcher ne voit jamais un PDF incomplet
+    private Path storeUpload(String fileName, UploadWriter writer) {
+        
+        requireUploadable(fileName);
+        
+        // réservé jusqu'à indexUploadedPDF : le watcher ne doit pas indexer le fichier en parallèle
+        if (!inProgress.add(fileName)) {
+            throw new UploadRejectedException(Reason.CONFLICT,
+                "Le document '" + fileName + "' est déjà en cours d'indexation");
         }
         
         try {
@@ -325,49 +899,215 @@ public class PDFLoaderServiceDefault implements PDFLoaderService {
             
             if (Files.exists(filePath)) {
                 logger.warn(" Le fichier {} existe déjà sur disque", fileName);
-                throw new PDFLoadException("Le fichier '" + fileName + "' existe déjà");
+                inProgress.remove(fileName);
+                throw new UploadRejectedException(Reason.CONFLICT, "Le fichier '" + fileName + "' existe déjà");
             }
             
-            Files.write(filePath, fileContent, 
-                       StandardOpenOption.CREATE, 
-                       StandardOpenOption.TRUNCATE_EXISTING);
-            
-            logger.info(" Fichier sauvegardé: {}", filePath);
+            Path partFile = coursesPath.resolve("." + fileName + ".part");
+            try {
+                writer.writeTo(partFile);
+                Files.move(partFile, filePath, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partFile);
+            }
             
-            return loadPDF(filePath);
+            logger.info(" Fichier sauvegardé: {} ({} octets)", filePath, Files.size(filePath));
+            return filePath;
             
         } catch (IOException e) {
+            inProgress.remove(fileName);
             logger.error(" Erreur lors de l'upload de {}: {}", fileName, e.getMessage(), e);
             throw new PDFLoadException("Impossible d'uploader le PDF: " + fileName, e);
+        } catch (RuntimeException e) {
+            inProgress.remove(fileName);
+            throw e;
         }
     }
 
+    @Override
+    public DocumentMetadata indexUploadedPDF(Path pdfPath, IngestionListener listener) {
+        logger.info(" Indexation de l'upload: {}", pdfPath.getFileName());
+        List<DocumentMetadata> documents = runPipeline(List.of(new DocumentIngestion(pdfPath, listener)));
+        return documents.isEmpty() ? null : documents.get(0);
+    }
+
+    // upload sauvegardé mais jamais indexé : libère la réservation prise par saveUploadedPDF
+    @Override
+    public void releaseUpload(String fileName) {
+        inProgress.remove(fileName);
+    }
+    
     @Override
     public boolean isPDFIndexed(String fileName) {
-        return indexedFiles.contains(fileName);
+        return manifest.contains(fileName);
     }
     
     @Override
     public int getIndexedFilesCount() {
-        return indexedFiles.size();
+        return manifest.size();
     }
     
     @Override
     public Set<String> getIndexedFileNames() {
-        return new HashSet<>(indexedFiles);
+        return manifest.getFileNames();
     }
     
     @Override
     public List<DocumentMetadata> getIndexedDocumentsMetadata() {
-        return new ArrayList<>(documentsCache.values());
+        Path coursesPath = Paths.get(coursesDirectory);
+        return manifest.getAll().stream()
+            .map(entry -> toMetadata(entry, coursesPath.resolve(entry.getFileName())))
+            .collect(Collectors.toList());
+    }
+    
+    // false : fichier déjà en cours d'indexation, le changement est à réessayer plus tard
+    @Override
+    public boolean refreshPDF(Path pdfPath) {
+        String fileName = pdfPath.getFileName().toString();
+        
+        if (!inProgress.add(fileName)) {
+            logger.info(" {} en cours d'indexation, réindexation reportée", fileName);
+            return false;
+        }
+        
+        boolean reserved = true;
+        try {
+            Optional<IngestionManifest.Entry> entry = upToDateEntry(pdfPath);
+            if (entry.isPresent()) {
+                logger.debug(" {} inchangé, rien à réindexer", fileName);
+                return true;
+            }
+            
+            logger.info(" Réindexation incrémentale de: {}", fileName);
+            removeStaleVectors(fileName);
+            
+            reserved = false;
+            runPipeline(List.of(new DocumentIngestion(pdfPath, IngestionListener.NONE)));
+            return true;
+            
+        } catch (IOException e) {
+            logger.error(" Impossible de lire {}: {}", fileName, e.getMessage());
+            return true;
+        } finally {
+            if (reserved) {
+                inProgress.remove(fileName);
+            }
+        }
+    }
+    
+    // false : fichier en cours d'indexation, la suppression est à réessayer plus tard
+    @Override
+    public boolean removePDF(String fileName) {
+        if (!inProgress.add(fileName)) {
+            logger.info(" {} en cours d'indexation, suppression reportée", fileName);
+            return false;
+        }
+        
+        try {
+            boolean known = manifest.contains(fileName);
+            removeStaleVectors(fileName);
+            if (known) {
+                logger.info(" {} retiré de l'index", fileName);
+            }
+            return true;
+        } finally {
+            inProgress.remove(fileName);
+        }
+    }
+    
+    @Override
+    public Map<String, Map<String, Object>> getIngestionStats() {
+        return lastIngestionStats;
     }
     
     @Override
     public List<DocumentMetadata> forceReindexAll() {
         logger.info(" Force ré-indexation de tous les fichiers");
-        indexedFiles.clear();
-        documentsCache.clear();
         
-        return loadAllPDFs();
+        Path coursesPath = Paths.get(coursesDirectory);
+        Set<String> fileNames = new TreeSet<>(manifest.getFileNames());
+        try (Stream<Path> files = Files.exists(coursesPath) ? Files.list(coursesPath) : Stream.empty()) {
+            files.map(path -> path.getFileName().toString())
+                .filter(name -> name.toLowerCase().endsWith(".pdf"))
+                .forEach(fileNames::add);
+        } catch (IOException e) {
+            logger.error(" Erreur lors de la lecture de {}", coursesDirectory, e);
+            throw new PDFLoadException("Impossible de lister les PDFs", e);
+        }
+        
+        // même réservation que refreshPDF : un fichier déjà en cours d'indexation (upload, watcher)
+        // est laissé à ce traitement, qui produit de toute façon des vecteurs à jour
+        List<DocumentIngestion> toIndex = new ArrayList<>();
+        for (String fileName : fileNames) {
+            if (!inProgress.add(fileName)) {
+                logger.info(" {} déjà en cours d'indexation, ignoré", fileName);
+                continue;
+            }
+            try {
+                removeStaleVectors(fileName);
+            } catch (RuntimeException e) {
+                inProgress.remove(fileName);
+                toIndex.forEach(doc -> inProgress.remove(doc.fileName));
+                throw e;
+            }
+            Path pdfPath = coursesPath.resolve(fileName);
+            if (Files.exists(pdfPath)) {
+                toIndex.add(new DocumentIngestion(pdfPath, IngestionListener.NONE));
+            } else {
+                inProgress.remove(fileName);
+            }
+        }
+        
+        // réservations libérées par le pipeline
+        return runPipeline(toIndex);
     }
-}
\ No newline at end of file
+    
+    
+    // suivi d'un document à travers les étages du pipeline
+    private static final class DocumentIngestion {
+        private final Path path;
+        private final String fileName;
+        private final IngestionListener listener;
+        private final Map<Integer, List<String>> chunkIdsByBatch = new ConcurrentSkipListMap<>();
+        private final Map<Integer, List<String>> chunkHashesByBatch = new ConcurrentSkipListMap<>();
+        private final AtomicInteger batchesEmitted = new AtomicInteger();
+        private final AtomicInteger batchesDone = new AtomicInteger();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile boolean allBatchesEmitted;
+        private volatile boolean failed;
+        private volatile Exception error;
+        private volatile long fileSize;
+        private volatile String contentHash;
+        private volatile int chunkCount;
+        private volatile DocumentMetadata result;
+        // étage de parse (un seul thread par document)
+        private int windowsRead;
+        // étage de découpage, sous le verrou du document
+        private final Map<Integer, SplitWindow> splitWindows = new HashMap<>();
+        private final List<TextSegment> pendingSegments = new ArrayList<>();
+        private int nextWindow;
+
+        private DocumentIngestion(Path path, IngestionListener listener) {
+            this.path = path;
+            this.fileName = path.getFileName().toString();
+            this.listener = listener;
+        }
+
+        private void fail(Exception e) {
+            if (!failed) {
+                error = e;
+                failed = true;
+            }
+        }
+    }
+    
+    private record PageWindow(DocumentIngestion doc, int index, List<Page> pages, boolean last) {}
+    
+    private record SplitWindow(List<TextSegment> segments, boolean last) {}
+    
+    private record ExtractedWindow(List<Page> pages, Exception error) {}
+    
+    private record SegmentBatch(DocumentIngestion doc, int index, List<TextSegment> segments) {}
+    
+    private record EmbeddedBatch(DocumentIngestion doc, int index, List<TextSegment> segments, List<Embedding> embeddings) {}
+}
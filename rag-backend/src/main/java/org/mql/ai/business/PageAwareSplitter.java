@@ -0,0 +1,110 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Découpage d'une fenêtre de pages PDF avec le même découpage récursif que le document entier,
+ * puis attribution à chaque segment de la page où il commence (métadonnée "page", numérotée à partir de 1).
+ * Les pages sont séparées par un saut de paragraphe : un segment ne chevauche une page que si
+ * le paragraphe lui-même la dépasse.
+ */
+public final class PageAwareSplitter {
+
+    public static final String PAGE_KEY = "page";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String PAGE_SEPARATOR = "\n\n";
+    // préfixe recherché quand le segment entier est introuvable (découpage au caractère)
+    private static final int PREFIX_LENGTH = 40;
+
+    private final DocumentSplitter splitter;
+
+    public record Page(int number, String text) {}
+
+    public PageAwareSplitter(int chunkSize, int chunkOverlap) {
+        this.splitter = DocumentSplitters.recursive(chunkSize, chunkOverlap);
+    }
+
+    public List<TextSegment> split(List<Page> pages) {
+        StringBuilder text = new StringBuilder();
+        // texte aux espaces réduits : les séparateurs recollés par le découpage n'y changent rien
+        StringBuilder normalized = new StringBuilder();
+        int[] starts = new int[pages.size()];
+        int[] numbers = new int[pages.size()];
+        int count = 0;
+
+        for (Page page : pages) {
+            String pageText = normalize(page.text());
+            if (pageText.isEmpty()) {
+                continue;
+            }
+            if (!text.isEmpty()) {
+                text.append(PAGE_SEPARATOR);
+                normalized.append(' ');
+            }
+            starts[count] = normalized.length();
+            numbers[count] = page.number();
+            count++;
+            text.append(page.text().strip());
+            normalized.append(pageText);
+        }
+        if (count == 0) {
+            return List.of();
+        }
+
+        List<TextSegment> segments = splitter.split(Document.from(text.toString()));
+        String searchable = normalized.toString();
+        int cursor = 0;
+        int page = numbers[0];
+        for (TextSegment segment : segments) {
+            int position = locate(searchable, normalize(segment.text()), cursor);
+            if (position >= 0) {
+                // segments suivants : après le début de celui-ci (le chevauchement le précède)
+                cursor = position + 1;
+                page = pageAt(starts, numbers, count, position);
+            }
+            segment.metadata().put(PAGE_KEY, String.valueOf(page));
+        }
+        return segments;
+    }
+
+    static String normalize(String text) {
+        return WHITESPACE.matcher(text).replaceAll(" ").strip();
+    }
+
+    private static int locate(String text, String segment, int from) {
+        if (segment.isEmpty()) {
+            return -1;
+        }
+        int position = text.indexOf(segment, from);
+        if (position < 0 && segment.length() > PREFIX_LENGTH) {
+            position = text.indexOf(segment.substring(0, PREFIX_LENGTH), from);
+        }
+        return position;
+    }
+
+    private static int pageAt(int[] starts, int[] numbers, int count, int position) {
+        int index = Arrays.binarySearch(starts, 0, count, position);
+        return numbers[index >= 0 ? index : Math.max(0, -index - 2)];
+    }
+
+    // numéro de page d'un segment indexé, 0 si inconnu (segments indexés avant l'extraction par page)
+    public static int pageOf(TextSegment segment) {
+        String value = segment.metadata().getString(PAGE_KEY);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
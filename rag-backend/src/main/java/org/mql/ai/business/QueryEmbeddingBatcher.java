@@ -0,0 +1,202 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import jakarta.annotation.PreDestroy;
+import org.mql.ai.exceptions.RAGException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micro-batching des embeddings de questions : les demandes arrivées pendant une courte fenêtre
+ * (ou jusqu'à max-batch-size) partent en un seul embedAll, chaque appelant récupère son vecteur.
+ * Sans lot en cours, une demande isolée part immédiatement : pas de latence ajoutée à faible charge.
+ */
+@Component
+public class QueryEmbeddingBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryEmbeddingBatcher.class);
+
+    private final EmbeddingModel embeddingModel;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger batchesInFlight = new AtomicInteger();
+    private final ExecutorService batchExecutor;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    private record Pending(String text, CompletableFuture<Embedding> result) {}
+
+    public QueryEmbeddingBatcher(EmbeddingModel embeddingModel,
+                                 @Value("${rag.embedding.batching.enabled:true}") boolean enabled,
+                                 @Value("${rag.embedding.batching.window-ms:3}") long windowMs,
+                                 @Value("${rag.embedding.batching.max-batch-size:32}") int maxBatchSize,
+                                 @Value("${rag.embedding.batching.threads:2}") int threads,
+                                 @Value("${rag.timeout-seconds:120}") int timeoutSeconds) {
+        this.embeddingModel = embeddingModel;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMs));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, timeoutSeconds));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.batchExecutor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "query-embedding-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatch, "query-embedding-batcher");
+        this.dispatcher.setDaemon(true);
+        if (enabled) {
+            dispatcher.start();
+        }
+
+        logger.info(" Micro-batching des embeddings de questions: {} (fenêtre {}ms, max {})",
+            enabled ? "activé" : "désactivé", windowMs, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        batchExecutor.shutdownNow();
+    }
+
+    // bloque jusqu'à ce que le lot contenant la question soit calculé, au plus rag.timeout-seconds
+    public Embedding embed(String text) {
+        requests.incrementAndGet();
+        if (!enabled || !running) {
+            batches.incrementAndGet();
+            return embeddingModel.embed(text).content();
+        }
+
+        Pending pending = new Pending(text, new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            return pending.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RAGException("Échec de l'embedding de la question", e.getCause());
+        } catch (TimeoutException e) {
+            // dispatcher arrêté ou modèle bloqué : l'appelant obtient une erreur au lieu d'attendre indéfiniment
+            pending.result().cancel(false);
+            logger.error(" Embedding de la question non obtenu après {} ms", timeoutMillis);
+            throw new RAGException("Délai dépassé pour l'embedding de la question", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result().cancel(false);
+            throw new RAGException("Embedding de la question interrompu", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long requestCount = requests.get();
+        long batchCount = batches.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("requests", requestCount);
+        stats.put("batches", batchCount);
+        stats.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) requestCount / batchCount);
+        stats.put("largestBatch", largestBatch.get());
+        return stats;
+    }
+
+    private void dispatch() {
+        while (running) {
+            List<Pending> batch = new ArrayList<>();
+            try {
+                batch.add(queue.take());
+
+                // un lot déjà en cours chez le modèle : on regroupe pendant la fenêtre
+                if (batchesInFlight.get() > 0 || !queue.isEmpty()) {
+                    long deadline = System.nanoTime() + windowNanos;
+                    while (batch.size() < maxBatchSize) {
+                        Pending next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+
+                submit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().cancel(false));
+                return;
+            }
+        }
+    }
+
+    private void submit(List<Pending> batch) {
+        batchesInFlight.incrementAndGet();
+        try {
+            batchExecutor.execute(() -> {
+                try {
+                    embedBatch(batch);
+                } finally {
+                    batchesInFlight.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            // exécuteur arrêté (fermeture du contexte) : les appelants ne doivent pas rester bloqués
+            batchesInFlight.decrementAndGet();
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private void embedBatch(List<Pending> batch) {
+        // questions identiques dans le même lot : un seul texte envoyé au modèle
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        List<TextSegment> segments = new ArrayList<>();
+        for (Pending pending : batch) {
+            positions.computeIfAbsent(pending.text(), text -> {
+                segments.add(TextSegment.from(text));
+                return segments.size() - 1;
+            });
+        }
+
+        batches.incrementAndGet();
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        try {
+            List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+            for (Pending pending : batch) {
+                pending.result().complete(embeddings.get(positions.get(pending.text())));
+            }
+            if (batch.size() > 1) {
+                logger.debug(" Lot de {} embeddings de questions ({} textes distincts)", batch.size(), segments.size());
+            }
+        } catch (RuntimeException e) {
+            logger.error(" Échec d'un lot de {} embeddings de questions", batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+}
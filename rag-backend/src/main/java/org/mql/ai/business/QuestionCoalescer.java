@@ -0,0 +1,327 @@
+package org.mql.ai.business;
+
+import org.mql.ai.models.ChatResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Regroupement des questions identiques en cours de traitement (single-flight) :
+ * le premier appelant calcule la réponse, les suivants (même question normalisée,
+ * même langue, même include_sources) s'abonnent au même calcul.
+ * Les abonnés streaming reçoivent les tokens déjà générés puis la suite en direct.
+ */
+@Component
+public class QuestionCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionCoalescer.class);
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    // envois SSE hors du thread du modèle : un thread au plus par abonné ayant des événements en attente
+    private final ExecutorService deliveryExecutor;
+
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong followers = new AtomicLong();
+
+    public QuestionCoalescer(
+            @Value("${rag.coalescing.enabled:true}") boolean enabled,
+            @Value("${rag.timeout-seconds:120}") int timeoutSeconds) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutSeconds * 1000L;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.deliveryExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "answer-delivery-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    // leader = true : l'appelant doit lancer le calcul et le terminer via complete()
+    public record Participation(Flight flight, boolean leader) {}
+
+    public Participation join(String question, String language, boolean includeSources) {
+        Flight created = new Flight();
+        if (!enabled) {
+            leaders.incrementAndGet();
+            return new Participation(created, true);
+        }
+
+        String key = normalizeKey(question, language, includeSources);
+        created.key = key;
+        long now = System.currentTimeMillis();
+        Flight flight = inFlight.compute(key, (k, existing) ->
+            // un calcul bloqué au-delà du timeout n'accepte plus de nouveaux abonnés
+            existing == null || now - existing.startedAt > timeoutMillis ? created : existing);
+
+        if (flight == created) {
+            leaders.incrementAndGet();
+            return new Participation(created, true);
+        }
+        followers.incrementAndGet();
+        logger.info(" Question déjà en cours de traitement, abonnement au calcul existant");
+        return new Participation(flight, false);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("leaders", leaders.get());
+        stats.put("followers", followers.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    static String normalizeKey(String question, String language, boolean includeSources) {
+        return QuestionEmbeddingCache.normalize(question) + "\u0000" + language + "\u0000" + includeSources;
+    }
+
+    // copie de la réponse pour un abonné : temps mesuré depuis son arrivée
+    private static ChatResponse forFollower(ChatResponse response, long joinedAt) {
+        if (!response.isSuccess()) {
+            return response;
+        }
+        ChatResponse copy = ChatResponse.success(response.getAnswer(), response.getSources(),
+            System.currentTimeMillis() - joinedAt);
+        copy.setTimings(response.getTimings());
+        copy.setCached(response.isCached());
+        copy.setCoalesced(true);
+        return copy;
+    }
+
+    /**
+     * Calcul partagé. Reçoit les tokens du leader (AnswerStreamListener) et les diffuse ;
+     * les abonnés arrivés en retard reçoivent d'abord le texte déjà généré.
+     * Sous le verrou, les événements sont seulement empilés par abonné : l'envoi se fait ensuite
+     * sur le thread de livraison de chaque abonné, jamais sur le thread du modèle.
+     */
+    public final class Flight implements AnswerStreamListener {
+
+        private final long startedAt = System.currentTimeMillis();
+        private final CompletableFuture<ChatResponse> result = new CompletableFuture<>();
+        private final StringBuilder tokens = new StringBuilder();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private String key;
+        private boolean done;
+        private RuntimeException failure;
+
+        public void subscribe(AnswerStreamListener listener, boolean follower) {
+            Subscriber subscriber = new Subscriber(this, listener, follower);
+            synchronized (this) {
+                if (!tokens.isEmpty()) {
+                    String replay = tokens.toString();
+                    subscriber.enqueue(l -> l.onToken(replay));
+                }
+                if (done) {
+                    if (failure != null) {
+                        String message = failure.getMessage();
+                        subscriber.enqueue(l -> l.onError(message));
+                    } else {
+                        subscriber.enqueueResult(result.join());
+                    }
+                } else {
+                    subscribers.add(subscriber);
+                }
+            }
+            subscriber.flush();
+        }
+
+        // attente d'un abonné non streaming
+        public ChatResponse await(String timeoutMessage) {
+            long joinedAt = System.currentTimeMillis();
+            try {
+                return forFollower(result.get(timeoutMillis, TimeUnit.MILLISECONDS), joinedAt);
+            } catch (TimeoutException e) {
+                return ChatResponse.error(timeoutMessage);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ChatResponse.error(timeoutMessage);
+            } catch (ExecutionException e) {
+                // échec propagé tel quel (ex. modèle saturé -> 503 pour tous les abonnés)
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                return ChatResponse.error(e.getCause().getMessage());
+            }
+        }
+
+        @Override
+        public void onToken(String token) {
+            List<Subscriber> targets;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                tokens.append(token);
+                subscribers.forEach(subscriber -> subscriber.enqueue(l -> l.onToken(token)));
+                targets = new ArrayList<>(subscribers);
+            }
+            targets.forEach(Subscriber::flush);
+        }
+
+        @Override
+        public void onComplete(ChatResponse response) {
+            complete(response);
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            complete(ChatResponse.error(errorMessage));
+        }
+
+        // termine le calcul (une seule fois) et notifie tous les abonnés
+        public void complete(ChatResponse response) {
+            List<Subscriber> targets;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                // plus de nouvel abonné : les questions suivantes passent par le cache sémantique
+                if (key != null) {
+                    inFlight.remove(key, this);
+                }
+                // réponse calculée sans streaming : les abonnés streaming la reçoivent d'un bloc
+                if (response.isSuccess() && tokens.isEmpty() && response.getAnswer() != null) {
+                    tokens.append(response.getAnswer());
+                    subscribers.forEach(subscriber -> subscriber.enqueue(l -> l.onToken(response.getAnswer())));
+                }
+                done = true;
+                result.complete(response);
+                subscribers.forEach(subscriber -> subscriber.enqueueResult(response));
+                targets = new ArrayList<>(subscribers);
+                subscribers.clear();
+            }
+            targets.forEach(Subscriber::flush);
+        }
+
+        // échec du calcul : un leader non abonné le reçoit par exception, les abonnés par onError
+        public void fail(RuntimeException error) {
+            List<Subscriber> targets;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                if (key != null) {
+                    inFlight.remove(key, this);
+                }
+                done = true;
+                failure = error;
+                result.completeExceptionally(error);
+                targets = new ArrayList<>(subscribers);
+                targets.forEach(subscriber -> subscriber.enqueue(l -> l.onError(error.getMessage())));
+                subscribers.clear();
+            }
+            targets.forEach(Subscriber::flush);
+        }
+
+        private synchronized void drop(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * File d'événements d'un abonné, livrés dans l'ordre par un seul thread à la fois :
+     * une connexion lente ne retarde que son propre flux. Un envoi en échec retire l'abonné.
+     */
+    private final class Subscriber {
+
+        private final Flight flight;
+        private final AnswerStreamListener listener;
+        private final long joinedAt = System.currentTimeMillis();
+        private final boolean follower;
+        private final Queue<Consumer<AnswerStreamListener>> pending = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean dropped;
+
+        private Subscriber(Flight flight, AnswerStreamListener listener, boolean follower) {
+            this.flight = flight;
+            this.listener = listener;
+            this.follower = follower;
+        }
+
+        synchronized void enqueue(Consumer<AnswerStreamListener> event) {
+            if (!dropped) {
+                pending.add(event);
+            }
+        }
+
+        void enqueueResult(ChatResponse response) {
+            if (!response.isSuccess()) {
+                enqueue(l -> l.onError(response.getErrorMessage()));
+            } else {
+                ChatResponse delivered = follower ? forFollower(response, joinedAt) : response;
+                enqueue(l -> l.onComplete(delivered));
+            }
+        }
+
+        void flush() {
+            synchronized (this) {
+                if (scheduled || pending.isEmpty()) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                deliveryExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drop(e);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Consumer<AnswerStreamListener> event;
+                synchronized (this) {
+                    event = pending.poll();
+                    if (event == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                try {
+                    event.accept(listener);
+                } catch (RuntimeException e) {
+                    drop(e);
+                    return;
+                }
+            }
+        }
+
+        private void drop(RuntimeException cause) {
+            logger.debug(" Abonné retiré après un envoi en échec: {}", cause.getMessage());
+            synchronized (this) {
+                dropped = true;
+                pending.clear();
+                scheduled = false;
+            }
+            flight.drop(this);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.embedding.Embedding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache LRU + TTL des embeddings de questions.
+ * Clé = modèle d'embedding + question normalisée (minuscules, espaces réduits).
+ */
+@Component
+public class QuestionEmbeddingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionEmbeddingCache.class);
+
+    private final String embeddingModelName;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // accessOrder = true : l'entrée la moins récemment lue sort en premier
+    private final LinkedHashMap<String, CachedEmbedding> entries;
+
+    public QuestionEmbeddingCache(
+            @Value("${rag.embedding.model-id:${ollama.embedding.model}}") String embeddingModelName,
+            @Value("${rag.cache.embedding.max-size:1000}") int maxSize,
+            @Value("${rag.cache.embedding.ttl-minutes:60}") long ttlMinutes) {
+        this.embeddingModelName = embeddingModelName;
+        this.maxSize = maxSize;
+        this.ttlMillis = Duration.ofMinutes(ttlMinutes).toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedEmbedding> eldest) {
+                if (size() > QuestionEmbeddingCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        logger.info(" Cache des embeddings de questions: maxSize={}, ttl={}min", maxSize, ttlMinutes);
+    }
+
+    // renvoie l'embedding en cache ou le calcule (hors verrou) puis le met en cache
+    public Embedding getOrCompute(String question, Function<String, Embedding> loader) {
+        if (maxSize <= 0) {
+            misses.incrementAndGet();
+            return loader.apply(question);
+        }
+
+        String key = key(question);
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            CachedEmbedding cached = entries.get(key);
+            if (cached != null) {
+                if (cached.expiresAt > now) {
+                    hits.incrementAndGet();
+                    return cached.embedding;
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        Embedding embedding = loader.apply(question);
+
+        synchronized (entries) {
+            entries.put(key, new CachedEmbedding(embedding, now + ttlMillis));
+        }
+        return embedding;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    static String normalize(String question) {
+        return question.trim()
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ");
+    }
+
+    private String key(String question) {
+        return embeddingModelName + "\u0000" + normalize(question);
+    }
+
+    private static final class CachedEmbedding {
+        private final Embedding embedding;
+        private final long expiresAt;
+
+        private CachedEmbedding(Embedding embedding, long expiresAt) {
+            this.embedding = embedding;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
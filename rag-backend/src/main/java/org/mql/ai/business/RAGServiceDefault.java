@@ -1,23 +1,36 @@
 package org.mql.ai.business;
 
 import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
-import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingSearchResult;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import jakarta.annotation.PreDestroy;
 import org.mql.ai.exceptions.RAGException;
+import org.mql.ai.exceptions.LlmOverloadedException;
 import org.mql.ai.models.ChatRequest;
 import org.mql.ai.models.ChatResponse;
 import org.mql.ai.models.SourceInfo;
+import org.mql.ai.store.HnswEmbeddingStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,12 +39,24 @@ public class RAGServiceDefault implements RagService {
     private static final Logger logger = LoggerFactory.getLogger(RAGServiceDefault.class);
     
     private final ChatLanguageModel chatModel;
-    private final EmbeddingModel embeddingModel;
+    private final StreamingChatLanguageModel streamingChatModel;
     private final EmbeddingStore<TextSegment> embeddingStore;
     private final PDFLoaderService pdfLoaderService;
+    private final QuestionEmbeddingCache questionEmbeddingCache;
+    private final SemanticAnswerCache semanticAnswerCache;
+    private final EmbeddingDiskCache embeddingDiskCache;
+    private final LexicalIndex lexicalIndex;
+    private final ContextAssembler contextAssembler;
+    private final QuestionCoalescer questionCoalescer;
+    private final QueryEmbeddingBatcher queryEmbeddingBatcher;
+    private final LlmConcurrencyLimiter llmConcurrencyLimiter;
+    private final RagMetrics metrics;
+    private final ExecutorService streamExecutor;
     
     private final int maxResults;
     private final double minScore;
+    private final int hybridCandidates;
+    private final int rrfK;
     
     private final String promptTemplateFr;
     private final String promptTemplateEn;
@@ -41,11 +66,22 @@ public class RAGServiceDefault implements RagService {
     private final String errorMessageEn;
 
     public RAGServiceDefault(ChatLanguageModel chatModel, 
-    		EmbeddingModel embeddingModel, 
+    		StreamingChatLanguageModel streamingChatModel,
     		EmbeddingStore<TextSegment> embeddingStore,
     		PDFLoaderService pdfLoaderService,
+    		QuestionEmbeddingCache questionEmbeddingCache,
+    		SemanticAnswerCache semanticAnswerCache,
+    		EmbeddingDiskCache embeddingDiskCache,
+    		LexicalIndex lexicalIndex,
+    		ContextAssembler contextAssembler,
+    		QuestionCoalescer questionCoalescer,
+    		QueryEmbeddingBatcher queryEmbeddingBatcher,
+    		LlmConcurrencyLimiter llmConcurrencyLimiter,
+    		RagMetrics metrics,
             @Value("${rag.retrieval.max-results}") int maxResults,
             @Value("${rag.retrieval.min-score}") double minScore,
+            @Value("${rag.retrieval.hybrid.candidates:20}") int hybridCandidates,
+            @Value("${rag.retrieval.hybrid.rrf-k:60}") int rrfK,
             @Value("${rag.prompt.template.fr:Default FR}") String promptTemplateFr,
             @Value("${rag.prompt.template.en:Default EN}") String promptTemplateEn,
             @Value("${rag.message.no-results.fr:Aucune information trouvee}") String noResultsMessageFr,
@@ -54,11 +90,22 @@ public class RAGServiceDefault implements RagService {
             @Value("${rag.message.error.en:Error}") String errorMessageEn) {
         
     	this.chatModel = chatModel;
-        this.embeddingModel = embeddingModel;
+        this.streamingChatModel = streamingChatModel;
         this.embeddingStore = embeddingStore;
         this.pdfLoaderService = pdfLoaderService;
+        this.questionEmbeddingCache = questionEmbeddingCache;
+        this.semanticAnswerCache = semanticAnswerCache;
+        this.embeddingDiskCache = embeddingDiskCache;
+        this.lexicalIndex = lexicalIndex;
+        this.contextAssembler = contextAssembler;
+        this.questionCoalescer = questionCoalescer;
+        this.queryEmbeddingBatcher = queryEmbeddingBatcher;
+        this.llmConcurrencyLimiter = llmConcurrencyLimiter;
+        this.metrics = metrics;
         this.maxResults = maxResults;
         this.minScore = minScore;
+        this.hybridCandidates = Math.max(maxResults, hybridCandidates);
+        this.rrfK = rrfK;
         this.promptTemplateFr = promptTemplateFr;
         this.promptTemplateEn = promptTemplateEn;
         this.noResultsMessageFr = noResultsMessageFr;
@@ -66,71 +113,284 @@ public class RAGServiceDefault implements RagService {
         this.errorMessageFr = errorMessageFr;
         this.errorMessageEn = errorMessageEn;
         
+        // un thread par flux en recherche ou en attente d'une place LLM : borné comme le limiteur,
+        // au-delà le flux est refusé (503) au lieu d'ouvrir un thread de plus
+        AtomicInteger threadCount = new AtomicInteger();
+        int streamThreads = llmConcurrencyLimiter.capacity();
+        ThreadPoolExecutor streamPool = new ThreadPoolExecutor(streamThreads, streamThreads,
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "answer-stream-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        streamPool.allowCoreThreadTimeOut(true);
+        this.streamExecutor = streamPool;
+        
         logger.info(" RAG Service initialisé");
         logger.info(" Paramètres: maxResults={}, minScore={}", maxResults, minScore);
+        logger.info(" Recherche hybride BM25 + vecteurs: {}", lexicalIndex.isEnabled());
         logger.info(" Support multilingue: FR, EN");
     }
 
+    @PreDestroy
+    public void shutdown() {
+        streamExecutor.shutdownNow();
+    }
+
     @Override
     public ChatResponse processQuestion(ChatRequest request) {
-        long startTime = System.currentTimeMillis();
         String language = determineLanguage(request);
         logger.info(" Traitement de la question (langue: {}): {}", language, request.getQuestion());
         
+        // même question déjà en cours : on attend son résultat au lieu de relancer le LLM
+        QuestionCoalescer.Participation participation = questionCoalescer.join(
+            request.getQuestion(), language, request.isIncludeSources());
+        String errorMessage = language.equals("en") ? errorMessageEn : errorMessageFr;
+        if (!participation.leader()) {
+            long waitStart = System.currentTimeMillis();
+            ChatResponse response = participation.flight().await(errorMessage + " Timeout");
+            metrics.recordQuery("coalesced", System.currentTimeMillis() - waitStart);
+            return response;
+        }
+        
+        ChatResponse response = ChatResponse.error(errorMessage);
+        try {
+            response = answer(request, language);
+            return response;
+        } catch (LlmOverloadedException e) {
+            participation.flight().fail(e);
+            throw e;
+        } finally {
+            participation.flight().complete(response);
+        }
+    }
+    
+    
+    private ChatResponse answer(ChatRequest request, String language) {
+        long startTime = System.currentTimeMillis();
+        
         try {
-            // 1. Créer l'embedding de la question
-            logger.debug(" Création de l'embedding de la question...");
-            Embedding questionEmbedding = embeddingModel.embed(request.getQuestion()).content();
+            Map<String, Long> timings = new LinkedHashMap<>();
+            // lu avant la recherche : une réindexation pendant la génération écarte la réponse du cache
+            long cacheGeneration = semanticAnswerCache.generation();
             
-            // 2. Rechercher les documents similaires
-            logger.debug(" Recherche de similarité dans ChromaDB...");
-            EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
-                .queryEmbedding(questionEmbedding)
-                .maxResults(maxResults)
-                .minScore(minScore)
-                .build();
+            // 1. Embedding de la question (cache LRU)
+            Embedding questionEmbedding = embedQuestion(request.getQuestion(), timings);
             
-            EmbeddingSearchResult<TextSegment> searchResult = embeddingStore.search(searchRequest);
-            List<EmbeddingMatch<TextSegment>> matches = searchResult.matches();
+            // Question quasi identique déjà traitée : pas d'appel au LLM
+            Optional<ChatResponse> cached = semanticAnswerCache.lookup(questionEmbedding, language);
+            metrics.recordCacheLookup("semantic-answer", cached.isPresent());
+            if (cached.isPresent()) {
+                ChatResponse response = fromCache(cached.get(), request, startTime, timings);
+                metrics.recordStages(timings);
+                metrics.recordQuery("cached", response.getProcessingTimeMs());
+                return response;
+            }
             
-            logger.info(" {} documents pertinents trouvés", matches.size());
+            // 2. Rechercher les documents similaires
+            List<EmbeddingMatch<TextSegment>> matches = search(request.getQuestion(), questionEmbedding, timings);
             
             if (matches.isEmpty()) {
                 logger.warn(" Aucun document pertinent trouvé");
                 String message = language.equals("en") ? noResultsMessageEn : noResultsMessageFr;
+                metrics.recordQuery("no_results", System.currentTimeMillis() - startTime);
                 return ChatResponse.error(message);
             }
             
-            // 3. Construire le contexte
-            String context = buildContext(matches);
-            logger.debug(" Contexte construit: {} caractères", context.length());
-            
-            // 4. Construire le prompt selon la langue
-            String prompt = buildPrompt(request.getQuestion(), context, language);
+            // 3-4. Contexte + prompt selon la langue
+            String prompt = preparePrompt(request.getQuestion(), matches, language, timings);
             
             // 5. Générer la réponse avec le LLM
             logger.debug(" Génération de la réponse avec Ollama...");
-            String answer = chatModel.generate(prompt);
-            
-            // 6. Créer les sources DÉDOUBLONNÉES si demandé
-            List<SourceInfo> sources = null;
-            if (request.isIncludeSources()) {
-                sources = buildSourcesDeduplicated(matches);
-                logger.debug(" {} sources uniques extraites", sources.size());
+            long queueStart = System.currentTimeMillis();
+            llmConcurrencyLimiter.acquire();
+            timings.put("queue", System.currentTimeMillis() - queueStart);
+            long generationStart = System.currentTimeMillis();
+            String answer;
+            try {
+                answer = chatModel.generate(prompt);
+            } finally {
+                llmConcurrencyLimiter.release();
             }
+            timings.put("generation", System.currentTimeMillis() - generationStart);
+            
+            // 6. Créer les sources DÉDOUBLONNÉES (gardées en cache même si non demandées)
+            List<SourceInfo> sources = buildSourcesDeduplicated(matches);
+            logger.debug(" {} sources uniques extraites", sources.size());
+            semanticAnswerCache.put(cacheGeneration, questionEmbedding, language, matches, answer, sources);
             
             long processingTime = System.currentTimeMillis() - startTime;
-            logger.info(" Réponse générée en {}ms", processingTime);
+            logger.info(" Réponse générée en {}ms {}", processingTime, timings);
+            metrics.recordStages(timings);
+            metrics.recordQuery("success", processingTime);
             
-            return ChatResponse.success(answer, sources, processingTime);
+            ChatResponse response = ChatResponse.success(
+                answer, request.isIncludeSources() ? sources : null, processingTime);
+            response.setTimings(timings);
+            return response;
             
+        } catch (LlmOverloadedException e) {
+            metrics.recordQuery("overloaded", System.currentTimeMillis() - startTime);
+            throw e;
         } catch (Exception e) {
             logger.error(" Erreur lors du traitement de la question", e);
+            metrics.recordError("query", e);
+            metrics.recordQuery("error", System.currentTimeMillis() - startTime);
             String message = language.equals("en") ? errorMessageEn : errorMessageFr;
             return ChatResponse.error(message + " " + e.getMessage());
         }
     }
 
+    @Override
+    public void streamQuestion(ChatRequest request, AnswerStreamListener listener) {
+        String language = determineLanguage(request);
+        logger.info(" Traitement en streaming (langue: {}): {}", language, request.getQuestion());
+        
+        // les abonnés reçoivent les tokens déjà générés puis la suite du calcul partagé
+        QuestionCoalescer.Participation participation = questionCoalescer.join(
+            request.getQuestion(), language, request.isIncludeSources());
+        QuestionCoalescer.Flight flight = participation.flight();
+        if (participation.leader()) {
+            // seul le refus immédiat (file pleine) reste sur le thread HTTP, pour répondre 503
+            // avant le premier événement ; le reste se déroule une fois le flux ouvert
+            try {
+                llmConcurrencyLimiter.checkAdmission();
+            } catch (LlmOverloadedException e) {
+                metrics.recordQuery("overloaded", 0);
+                flight.fail(e);
+                throw e;
+            }
+        }
+        
+        if (participation.leader()) {
+            try {
+                streamExecutor.execute(() -> {
+                    try {
+                        stream(request, language, flight);
+                    } catch (LlmOverloadedException e) {
+                        // file saturée pendant l'attente : le flux est déjà ouvert, erreur SSE
+                        flight.fail(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LlmOverloadedException overloaded = llmConcurrencyLimiter.reject("tous les flux occupés");
+                metrics.recordQuery("overloaded", 0);
+                flight.fail(overloaded);
+                throw overloaded;
+            }
+        }
+        // abonnement après le lancement : les tokens déjà produits sont rejoués à l'abonné
+        flight.subscribe(listener, !participation.leader());
+    }
+    
+    
+    // embedding, recherche et attente d'une place LLM sur un thread answer-stream
+    private void stream(ChatRequest request, String language, AnswerStreamListener listener) {
+        long startTime = System.currentTimeMillis();
+        String errorMessage = language.equals("en") ? errorMessageEn : errorMessageFr;
+        
+        try {
+            // les callbacks du modèle arrivent sur un thread HTTP d'Ollama
+            Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+            long cacheGeneration = semanticAnswerCache.generation();
+            
+            Embedding questionEmbedding = embedQuestion(request.getQuestion(), timings);
+            
+            Optional<ChatResponse> cached = semanticAnswerCache.lookup(questionEmbedding, language);
+            metrics.recordCacheLookup("semantic-answer", cached.isPresent());
+            if (cached.isPresent()) {
+                ChatResponse response = fromCache(cached.get(), request, startTime, new LinkedHashMap<>(timings));
+                metrics.recordStages(response.getTimings());
+                metrics.recordQuery("cached", response.getProcessingTimeMs());
+                listener.onToken(response.getAnswer());
+                listener.onComplete(response);
+                return;
+            }
+            
+            List<EmbeddingMatch<TextSegment>> matches = search(request.getQuestion(), questionEmbedding, timings);
+            
+            if (matches.isEmpty()) {
+                logger.warn(" Aucun document pertinent trouvé");
+                metrics.recordQuery("no_results", System.currentTimeMillis() - startTime);
+                listener.onError(language.equals("en") ? noResultsMessageEn : noResultsMessageFr);
+                return;
+            }
+            
+            String prompt = preparePrompt(request.getQuestion(), matches, language, timings);
+            
+            long queueStart = System.currentTimeMillis();
+            llmConcurrencyLimiter.acquire();
+            timings.put("queue", System.currentTimeMillis() - queueStart);
+            // libérée une seule fois, quel que soit le chemin de fin de génération
+            AtomicBoolean released = new AtomicBoolean(false);
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    llmConcurrencyLimiter.release();
+                }
+            };
+            
+            logger.debug(" Génération en streaming avec Ollama...");
+            long generationStart = System.currentTimeMillis();
+            AtomicBoolean firstToken = new AtomicBoolean(true);
+            
+            try {
+                streamingChatModel.generate(prompt, new StreamingResponseHandler<AiMessage>() {
+                
+                    @Override
+                    public void onNext(String token) {
+                        if (firstToken.compareAndSet(true, false)) {
+                            long timeToFirstToken = System.currentTimeMillis() - startTime;
+                            timings.put("timeToFirstToken", timeToFirstToken);
+                            logger.debug(" Premier token reçu après {}ms", timeToFirstToken);
+                        }
+                        listener.onToken(token);
+                    }
+                
+                    @Override
+                    public void onComplete(Response<AiMessage> response) {
+                        release.run();
+                        timings.put("generation", System.currentTimeMillis() - generationStart);
+                    
+                        String answer = response.content().text();
+                        List<SourceInfo> sources = buildSourcesDeduplicated(matches);
+                        semanticAnswerCache.put(cacheGeneration, questionEmbedding, language, matches, answer, sources);
+                    
+                        long processingTime = System.currentTimeMillis() - startTime;
+                        logger.info(" Réponse streamée en {}ms {}", processingTime, timings);
+                        metrics.recordStages(new LinkedHashMap<>(timings));
+                        metrics.recordQuery("success", processingTime);
+                    
+                        ChatResponse chatResponse = ChatResponse.success(
+                            answer, request.isIncludeSources() ? sources : null, processingTime);
+                        chatResponse.setTimings(new LinkedHashMap<>(timings));
+                        listener.onComplete(chatResponse);
+                    }
+                
+                    @Override
+                    public void onError(Throwable error) {
+                        release.run();
+                        logger.error(" Erreur lors de la génération en streaming", error);
+                        metrics.recordError("stream", error);
+                        metrics.recordQuery("error", System.currentTimeMillis() - startTime);
+                        listener.onError(errorMessage + " " + error.getMessage());
+                    }
+                });
+            } catch (RuntimeException e) {
+                release.run();
+                throw e;
+            }
+            
+        } catch (LlmOverloadedException e) {
+            metrics.recordQuery("overloaded", System.currentTimeMillis() - startTime);
+            throw e;
+        } catch (Exception e) {
+            logger.error(" Erreur lors du traitement de la question en streaming", e);
+            metrics.recordError("stream", e);
+            metrics.recordQuery("error", System.currentTimeMillis() - startTime);
+            listener.onError(errorMessage + " " + e.getMessage());
+        }
+    }
+
     @Override
     public int indexAllDocuments() {
         logger.info(" Indexation de tous les documents...");
@@ -164,6 +424,28 @@ public class RAGServiceDefault implements RagService {
     	return pdfLoaderService.getIndexedFilesCount();
     }
 
+    @Override
+    public Map<String, Object> getCacheStats() {
+        return Map.of(
+            "questionEmbeddings", questionEmbeddingCache.getStats(),
+            "semanticAnswers", semanticAnswerCache.getStats(),
+            "chunkEmbeddings", embeddingDiskCache.getStats(),
+            "lexicalIndex", lexicalIndex.getStats(),
+            "context", contextAssembler.getStats(),
+            "coalescing", questionCoalescer.getStats(),
+            "queryEmbeddingBatching", queryEmbeddingBatcher.getStats(),
+            "llmConcurrency", llmConcurrencyLimiter.getStats()
+        );
+    }
+
+    @Override
+    public Map<String, Object> getVectorStoreStats() {
+        if (embeddingStore instanceof HnswEmbeddingStore hnswStore) {
+            return hnswStore.getStats();
+        }
+        return Map.of("type", embeddingStore.getClass().getSimpleName());
+    }
+
     @Override
     public void clearIndex() {
         logger.warn(" Suppression de l'index non implémentée");
@@ -175,7 +457,7 @@ public class RAGServiceDefault implements RagService {
 
     
     // détermine la langue de la question
-    private String determineLanguage(ChatRequest request) {
+    String determineLanguage(ChatRequest request) {
         if (request.getLanguage() != null) {
             return request.getLanguage().toLowerCase();
         }
@@ -203,23 +485,116 @@ public class RAGServiceDefault implements RagService {
     }
 
     
-    // construit le contexte à partir des segments trouvés
-    private String buildContext(List<EmbeddingMatch<TextSegment>> matches) {
-        return matches.stream()
-            .map(match -> match.embedded().text())
-            .collect(Collectors.joining("\n\n---\n\n"));
+    // embedding de la question (étape chronométrée, via le cache LRU)
+    private Embedding embedQuestion(String question, Map<String, Long> timings) {
+        logger.debug(" Création de l'embedding de la question...");
+        long stageStart = System.currentTimeMillis();
+        // regroupée avec les questions concurrentes en un seul appel au modèle
+        AtomicBoolean computed = new AtomicBoolean(false);
+        Embedding questionEmbedding = questionEmbeddingCache.getOrCompute(question, text -> {
+            computed.set(true);
+            return queryEmbeddingBatcher.embed(text);
+        });
+        metrics.recordCacheLookup("question-embedding", !computed.get());
+        timings.put("embedding", System.currentTimeMillis() - stageStart);
+        return questionEmbedding;
+    }
+
+    
+    // recherche de similarité, fusionnée avec BM25 si l'index lexical est actif (étapes chronométrées)
+    private List<EmbeddingMatch<TextSegment>> search(String question, Embedding questionEmbedding, Map<String, Long> timings) {
+        logger.debug(" Recherche de similarité dans le vector store...");
+        long stageStart = System.currentTimeMillis();
+        EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
+            .queryEmbedding(questionEmbedding)
+            .maxResults(lexicalIndex.isEnabled() ? hybridCandidates : maxResults)
+            .minScore(minScore)
+            .build();
+        
+        EmbeddingSearchResult<TextSegment> searchResult = embeddingStore.search(searchRequest);
+        List<EmbeddingMatch<TextSegment>> matches = searchResult.matches();
+        timings.put("search", System.currentTimeMillis() - stageStart);
+        
+        if (lexicalIndex.isEnabled()) {
+            long lexicalStart = System.currentTimeMillis();
+            List<LexicalIndex.Hit> hits = lexicalIndex.search(question, hybridCandidates);
+            matches = fuse(matches, hits);
+            timings.put("lexical", System.currentTimeMillis() - lexicalStart);
+            logger.debug(" {} résultats BM25 fusionnés", hits.size());
+        }
+        
+        logger.info(" {} documents pertinents trouvés", matches.size());
+        metrics.recordMatches(matches.size());
+        return matches;
+    }
+
+    
+    // Reciprocal Rank Fusion : score = somme des 1 / (k + rang), ramené à [0, 1]
+    // (1 = premier dans les deux classements)
+    private List<EmbeddingMatch<TextSegment>> fuse(List<EmbeddingMatch<TextSegment>> vectorMatches,
+                                                   List<LexicalIndex.Hit> lexicalHits) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        Map<String, TextSegment> segments = new HashMap<>();
+        Map<String, Embedding> embeddings = new HashMap<>();
+        
+        for (int rank = 0; rank < vectorMatches.size(); rank++) {
+            EmbeddingMatch<TextSegment> match = vectorMatches.get(rank);
+            scores.merge(match.embeddingId(), 1.0 / (rrfK + rank + 1), Double::sum);
+            segments.put(match.embeddingId(), match.embedded());
+            embeddings.put(match.embeddingId(), match.embedding());
+        }
+        for (int rank = 0; rank < lexicalHits.size(); rank++) {
+            LexicalIndex.Hit hit = lexicalHits.get(rank);
+            scores.merge(hit.chunkId(), 1.0 / (rrfK + rank + 1), Double::sum);
+            segments.putIfAbsent(hit.chunkId(), hit.segment());
+        }
+        
+        double best = 2.0 / (rrfK + 1);
+        return scores.entrySet().stream()
+            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+            .limit(maxResults)
+            .map(entry -> new EmbeddingMatch<>(entry.getValue() / best, entry.getKey(),
+                embeddings.get(entry.getKey()), segments.get(entry.getKey())))
+            .collect(Collectors.toList());
+    }
+
+    
+    // copie de la réponse en cache adaptée à la requête courante
+    private ChatResponse fromCache(ChatResponse cached, ChatRequest request, long startTime, Map<String, Long> timings) {
+        long processingTime = System.currentTimeMillis() - startTime;
+        logger.info(" Réponse servie par le cache sémantique en {}ms", processingTime);
+        
+        ChatResponse response = ChatResponse.success(
+            cached.getAnswer(), request.isIncludeSources() ? cached.getSources() : null, processingTime);
+        response.setTimings(timings);
+        response.setCached(true);
+        return response;
+    }
+
+    
+    // contexte + prompt (étape chronométrée)
+    private String preparePrompt(String question, List<EmbeddingMatch<TextSegment>> matches,
+                                 String language, Map<String, Long> timings) {
+        long stageStart = System.currentTimeMillis();
+        ContextAssembler.Context context = contextAssembler.assemble(matches);
+        logger.debug(" Contexte construit: {} caractères, ~{} tokens ({} économisés)",
+            context.text().length(), context.tokens(), context.tokensSaved());
+        String prompt = buildPrompt(question, context.text(), language);
+        metrics.recordPrompt(prompt.length(), context.tokens(), context.tokensSaved());
+        timings.put("context", System.currentTimeMillis() - stageStart);
+        return prompt;
     }
 
     
     // construit le prompt pour le LLM selon la langue
-    private String buildPrompt(String question, String context, String language) {
+    String buildPrompt(String question, String context, String language) {
         String template = language.equals("en") ? promptTemplateEn : promptTemplateFr;
         return String.format(template, context, question);
     }
 
     
     // garde le meilleur score par document
-    private List<SourceInfo> buildSourcesDeduplicated(List<EmbeddingMatch<TextSegment>> matches) {
+    List<SourceInfo> buildSourcesDeduplicated(List<EmbeddingMatch<TextSegment>> matches) {
         Map<String, EmbeddingMatch<TextSegment>> bestMatchByFile = new LinkedHashMap<>();
         
         for (EmbeddingMatch<TextSegment> match : matches) {
@@ -246,6 +621,7 @@ public class RAGServiceDefault implements RagService {
                 : text;
             
             SourceInfo source = new SourceInfo(fileName, match.score(), excerpt);
+            source.setPageNumber(PageAwareSplitter.pageOf(match.embedded()));
             sources.add(source);
         }
         
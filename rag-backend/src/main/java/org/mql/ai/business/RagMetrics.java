@@ -0,0 +1,129 @@
+package org.mql.ai.business;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques Micrometer du pipeline RAG (exportées par Actuator, /actuator/prometheus).
+ * Les étapes d'une question reprennent les clés de "timings" (embedding, search, lexical,
+ * context, queue, generation...), celles de l'ingestion les étages du pipeline.
+ */
+@Component
+public class RagMetrics {
+
+    private final MeterRegistry registry;
+
+    private final DistributionSummary matches;
+    private final DistributionSummary promptChars;
+    private final DistributionSummary contextTokens;
+    private final DistributionSummary contextTokensSaved;
+    private final DistributionSummary embeddingBatchSize;
+
+    public RagMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.matches = DistributionSummary.builder("rag.query.matches")
+            .description("Chunks retenus par la recherche")
+            .register(registry);
+        this.promptChars = DistributionSummary.builder("rag.query.prompt.chars")
+            .description("Taille du prompt envoyé au LLM")
+            .baseUnit("characters")
+            .register(registry);
+        this.contextTokens = DistributionSummary.builder("rag.query.context.tokens")
+            .description("Tokens estimés du contexte")
+            .baseUnit("tokens")
+            .register(registry);
+        this.contextTokensSaved = DistributionSummary.builder("rag.query.context.tokens.saved")
+            .description("Tokens économisés par la fusion des chunks et le budget")
+            .baseUnit("tokens")
+            .register(registry);
+        this.embeddingBatchSize = DistributionSummary.builder("rag.embedding.batch.size")
+            .description("Segments par appel embedAll à l'indexation")
+            .register(registry);
+    }
+
+    // une entrée de "timings" = une étape (millisecondes)
+    public void recordStages(Map<String, Long> timings) {
+        timings.forEach((stage, millis) -> Timer.builder("rag.query.stage")
+            .description("Durée des étapes du traitement d'une question")
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(millis, TimeUnit.MILLISECONDS));
+    }
+
+    // outcome : success, cached, coalesced, no_results, overloaded, error
+    public void recordQuery(String outcome, long millis) {
+        Timer.builder("rag.query")
+            .description("Durée totale d'une question")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordMatches(int count) {
+        matches.record(count);
+    }
+
+    public void recordPrompt(int chars, int tokens, int tokensSaved) {
+        promptChars.record(chars);
+        contextTokens.record(tokens);
+        contextTokensSaved.record(tokensSaved);
+    }
+
+    // cache : question-embedding, semantic-answer, chunk-embedding
+    public void recordCacheLookup(String cache, boolean hit) {
+        recordCacheLookups(cache, hit ? 1 : 0, hit ? 0 : 1);
+    }
+
+    public void recordCacheLookups(String cache, long hits, long misses) {
+        if (hits > 0) {
+            cacheCounter(cache, "hit").increment(hits);
+        }
+        if (misses > 0) {
+            cacheCounter(cache, "miss").increment(misses);
+        }
+    }
+
+    public void recordError(String operation, Throwable error) {
+        Counter.builder("rag.errors")
+            .description("Erreurs par opération et type d'exception")
+            .tag("operation", operation)
+            .tag("exception", error.getClass().getSimpleName())
+            .register(registry)
+            .increment();
+    }
+
+    public void recordIngestionStage(String stage, long nanos) {
+        Timer.builder("rag.ingestion.stage")
+            .description("Durée de traitement d'un élément par étage d'ingestion")
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEmbeddingBatch(int size, long millis, boolean success) {
+        embeddingBatchSize.record(size);
+        Timer.builder("rag.embedding.batch")
+            .description("Durée d'un appel embedAll à l'indexation")
+            .tag("outcome", success ? "success" : "error")
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private Counter cacheCounter(String cache, String result) {
+        return Counter.builder("rag.cache.lookups")
+            .description("Consultations des caches")
+            .tag("cache", cache)
+            .tag("result", result)
+            .register(registry);
+    }
+}
@@ -3,10 +3,15 @@ package org.mql.ai.business;
 import org.mql.ai.models.ChatRequest;
 import org.mql.ai.models.ChatResponse;
 
+import java.util.Map;
+
 public interface RagService {
     ChatResponse processQuestion(ChatRequest request);
+    void streamQuestion(ChatRequest request, AnswerStreamListener listener);
     int indexAllDocuments();
     boolean indexDocument(String fileName);
     int getIndexedDocumentsCount();
+    Map<String, Object> getCacheStats();
+    Map<String, Object> getVectorStoreStats();
     void clearIndex();
 }
\ No newline at end of file
@@ -0,0 +1,233 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.mql.ai.models.ChatResponse;
+import org.mql.ai.models.SourceInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache sémantique des réponses : une question dont l'embedding est assez proche
+ * (cosinus >= seuil) d'une question déjà traitée réutilise la réponse sans appeler le LLM.
+ * Les entrées sont invalidées dès qu'un document ayant contribué à la réponse est réindexé.
+ * Une réponse dont la génération a chevauché une réindexation n'est pas mise en cache :
+ * l'appelant lit generation() avant la recherche et le passe à put().
+ */
+@Component
+public class SemanticAnswerCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    private final int maxSize;
+    private final double similarityThreshold;
+    private final long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    // ordre d'insertion : la plus ancienne entrée est retirée quand le cache est plein
+    private final LinkedList<CachedAnswer> entries = new LinkedList<>();
+    // incrémenté (sous le verrou de entries) à chaque changement de l'index
+    private long generation;
+
+    public SemanticAnswerCache(
+            @Value("${rag.cache.semantic.max-size:500}") int maxSize,
+            @Value("${rag.cache.semantic.similarity-threshold:0.95}") double similarityThreshold,
+            @Value("${rag.cache.semantic.ttl-minutes:1440}") long ttlMinutes) {
+        this.maxSize = maxSize;
+        this.similarityThreshold = similarityThreshold;
+        this.ttlMillis = Duration.ofMinutes(ttlMinutes).toMillis();
+
+        logger.info(" Cache sémantique des réponses: maxSize={}, seuil={}, ttl={}min",
+                maxSize, similarityThreshold, ttlMinutes);
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    // à lire avant la recherche des documents, puis à passer à put()
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    // cherche la réponse en cache la plus proche pour la même langue
+    public Optional<ChatResponse> lookup(Embedding questionEmbedding, String language) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+
+        float[] query = normalize(questionEmbedding.vector());
+        long now = System.currentTimeMillis();
+        CachedAnswer best = null;
+        double bestScore = similarityThreshold;
+
+        synchronized (entries) {
+            Iterator<CachedAnswer> it = entries.iterator();
+            while (it.hasNext()) {
+                CachedAnswer entry = it.next();
+                if (entry.expiresAt <= now) {
+                    it.remove();
+                    continue;
+                }
+                if (!entry.language.equals(language) || entry.vector.length != query.length) {
+                    continue;
+                }
+                double score = dot(query, entry.vector);
+                if (score >= bestScore) {
+                    bestScore = score;
+                    best = entry;
+                }
+            }
+        }
+
+        if (best == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        logger.debug(" Cache sémantique: réponse réutilisée (similarité {})", bestScore);
+        return Optional.of(best.response);
+    }
+
+    public void put(long generation, Embedding questionEmbedding, String language,
+                    List<EmbeddingMatch<TextSegment>> matches, String answer, List<SourceInfo> sources) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Set<String> chunkIds = new HashSet<>();
+        Set<String> fileNames = new HashSet<>();
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            chunkIds.add(match.embeddingId());
+            String fileName = match.embedded().metadata().getString("file_name");
+            if (fileName != null) {
+                fileNames.add(fileName);
+            }
+        }
+
+        ChatResponse response = ChatResponse.success(answer, sources, 0);
+        CachedAnswer entry = new CachedAnswer(
+                normalize(questionEmbedding.vector()), language, chunkIds, fileNames, response,
+                System.currentTimeMillis() + ttlMillis);
+
+        synchronized (entries) {
+            if (generation != this.generation) {
+                // index modifié pendant la génération : la réponse peut citer des chunks remplacés
+                discarded.incrementAndGet();
+                logger.debug(" Cache sémantique: réponse non conservée, index modifié pendant la génération");
+                return;
+            }
+            entries.addLast(entry);
+            while (entries.size() > maxSize) {
+                entries.removeFirst();
+            }
+        }
+    }
+
+    @EventListener
+    public void onDocumentIndexChanged(DocumentIndexChangedEvent event) {
+        int removed = 0;
+        synchronized (entries) {
+            generation++;
+            Iterator<CachedAnswer> it = entries.iterator();
+            while (it.hasNext()) {
+                CachedAnswer entry = it.next();
+                if (entry.fileNames.contains(event.getFileName())
+                        || !Collections.disjoint(entry.chunkIds, event.getChunkIds())) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            invalidations.addAndGet(removed);
+            logger.info(" Cache sémantique: {} réponses invalidées suite à la réindexation de {}",
+                    removed, event.getFileName());
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxSize", maxSize);
+        stats.put("similarityThreshold", similarityThreshold);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("discarded", discarded.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static final class CachedAnswer {
+        private final float[] vector;
+        private final String language;
+        private final Set<String> chunkIds;
+        private final Set<String> fileNames;
+        private final ChatResponse response;
+        private final long expiresAt;
+
+        private CachedAnswer(float[] vector, String language, Set<String> chunkIds, Set<String> fileNames,
+                             ChatResponse response, long expiresAt) {
+            this.vector = vector;
+            this.language = language;
+            this.chunkIds = chunkIds;
+            this.fileNames = fileNames;
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.mql.ai.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réconciliation de l'index au démarrage dans un thread dédié, une fois le serveur HTTP ouvert :
+ * les questions sont servies par l'index existant pendant le rattrapage.
+ * Indicateur de santé "startupIndexer" (groupe readiness) : OUT_OF_SERVICE tant que le rattrapage
+ * n'est pas terminé, avec la progression en détail.
+ */
+@Component
+public class StartupIndexer implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupIndexer.class);
+
+    private final PDFLoaderService pdfLoaderService;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger indexed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong chunksEmbedded = new AtomicLong();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public StartupIndexer(PDFLoaderService pdfLoaderService) {
+        this.pdfLoaderService = pdfLoaderService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "startup-indexing");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        startedAt = Instant.now();
+        try {
+            pdfLoaderService.initializeIndex(new IngestionListener() {
+                @Override
+                public void onChunksEmbedded(int count) {
+                    chunksEmbedded.addAndGet(count);
+                }
+
+                @Override
+                public void onQueued(int documents) {
+                    queued.addAndGet(documents);
+                    if (documents > 0) {
+                        logger.info(" Rattrapage de l'index en arrière-plan: {} documents", documents);
+                    }
+                }
+
+                @Override
+                public void onFinished(boolean success) {
+                    (success ? indexed : failed).incrementAndGet();
+                    logger.info(" Rattrapage de l'index: {}/{} documents traités",
+                        indexed.get() + failed.get(), queued.get());
+                }
+            });
+        } catch (RuntimeException e) {
+            // l'index existant reste utilisable : l'application passe prête malgré l'échec
+            logger.error(" Erreur pendant l'indexation au démarrage", e);
+        } finally {
+            finishedAt = Instant.now();
+            logger.info(" Index prêt ({} indexés, {} en échec, {} ms)", indexed.get(), failed.get(),
+                Duration.between(startedAt, finishedAt).toMillis());
+        }
+    }
+
+    public boolean isReady() {
+        return finishedAt != null;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = isReady() ? Health.up() : Health.outOfService();
+        return builder
+            .withDetail("queued", queued.get())
+            .withDetail("indexed", indexed.get())
+            .withDetail("failed", failed.get())
+            .withDetail("chunksEmbedded", chunksEmbedded.get())
+            .build();
+    }
+}
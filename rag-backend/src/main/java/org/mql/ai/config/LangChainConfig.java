@@ -1,18 +1,26 @@
 package org.mql.ai.config;
 
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.OnnxEmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.PoolingMode;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2q.AllMiniLmL6V2QuantizedEmbeddingModel;
 import dev.langchain4j.model.ollama.OllamaChatModel;
 import dev.langchain4j.model.ollama.OllamaEmbeddingModel;
+import dev.langchain4j.model.ollama.OllamaStreamingChatModel;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.chroma.ChromaEmbeddingStore;
+import org.mql.ai.store.HnswEmbeddingStore;
+import org.mql.ai.store.HnswOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
 import java.time.Duration;
 
 @Configuration
@@ -29,15 +37,64 @@ public class LangChainConfig {
     @Value("${ollama.embedding.model}")
     private String ollamaEmbeddingModel;
     
+    // ollama (HTTP) ou onnx (modèle exécuté dans la JVM, sur CPU)
+    @Value("${rag.embedding.provider:ollama}")
+    private String embeddingProvider;
+    
+    // vide : modèle all-MiniLM-L6-v2 quantifié embarqué
+    @Value("${rag.embedding.onnx.model-path:}")
+    private String onnxModelPath;
+    
+    @Value("${rag.embedding.onnx.tokenizer-path:}")
+    private String onnxTokenizerPath;
+    
+    @Value("${rag.embedding.onnx.pooling:MEAN}")
+    private PoolingMode onnxPooling;
+    
     @Value("${chroma.db.url}")
     private String chromaDbUrl;
     
     @Value("${chroma.db.collection}")
     private String chromaDbCollection;
     
+    @Value("${chroma.db.log-requests:false}")
+    private boolean chromaLogRequests;
+    
     @Value("${rag.timeout-seconds:120}")
     private int timeoutSeconds;
     
+    // chroma (service externe) ou hnsw (index en mémoire dans la JVM)
+    @Value("${rag.vector-store:chroma}")
+    private String vectorStore;
+    
+    @Value("${rag.vector-store.hnsw.file:data/hnsw-index.bin}")
+    private String hnswFile;
+    
+    @Value("${rag.vector-store.hnsw.m:16}")
+    private int hnswM;
+    
+    @Value("${rag.vector-store.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+    
+    @Value("${rag.vector-store.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+    
+    @Value("${rag.vector-store.hnsw.snapshot-interval-seconds:30}")
+    private long hnswSnapshotIntervalSeconds;
+    
+    // none ou int8 (codes en mémoire, vecteurs exacts sur disque pour le réordonnancement)
+    @Value("${rag.vector-store.hnsw.quantization:none}")
+    private String hnswQuantization;
+    
+    @Value("${rag.vector-store.hnsw.vectors-directory:data}")
+    private String hnswVectorsDirectory;
+    
+    @Value("${rag.vector-store.hnsw.rerank-factor:4}")
+    private int hnswRerankFactor;
+    
+    @Value("${rag.vector-store.hnsw.recall-sample-rate:0.01}")
+    private double hnswRecallSampleRate;
+    
     @Bean
     public ChatLanguageModel chatModel() {
         logger.info(" Configuration du ChatLanguageModel...");
@@ -51,8 +108,41 @@ public class LangChainConfig {
             .build();
     }
     
+    @Bean
+    public StreamingChatLanguageModel streamingChatModel() {
+        logger.info(" Configuration du StreamingChatLanguageModel...");
+        logger.info(" Ollama URL: {}", ollamaBaseUrl);
+        logger.info(" Modèle (streaming): {}", ollamaModel);
+        
+        return OllamaStreamingChatModel.builder()
+            .baseUrl(ollamaBaseUrl)
+            .modelName(ollamaModel)
+            .timeout(Duration.ofSeconds(timeoutSeconds))
+            .build();
+    }
+    
     @Bean
     public EmbeddingModel embeddingModel() {
+        if ("onnx".equalsIgnoreCase(embeddingProvider)) {
+            return onnxEmbeddingModel();
+        }
+        return ollamaEmbeddingModel();
+    }
+    
+    private EmbeddingModel onnxEmbeddingModel() {
+        logger.info(" Configuration de l'EmbeddingModel ONNX (en mémoire)...");
+        
+        if (onnxModelPath.isBlank()) {
+            logger.info(" Modèle d'embedding: all-MiniLM-L6-v2 quantifié (embarqué)");
+            return new AllMiniLmL6V2QuantizedEmbeddingModel();
+        }
+        
+        logger.info(" Modèle d'embedding: {} (tokenizer: {}, pooling: {})",
+            onnxModelPath, onnxTokenizerPath, onnxPooling);
+        return new OnnxEmbeddingModel(onnxModelPath, onnxTokenizerPath, onnxPooling);
+    }
+    
+    private EmbeddingModel ollamaEmbeddingModel() {
         logger.info(" Configuration de l'EmbeddingModel...");
         logger.info(" Ollama URL: {}", ollamaBaseUrl);
         logger.info(" Modèle d'embedding: {}", ollamaEmbeddingModel);
@@ -66,6 +156,33 @@ public class LangChainConfig {
     
     @Bean
     public EmbeddingStore<TextSegment> embeddingStore() {
+        if ("hnsw".equalsIgnoreCase(vectorStore)) {
+            return hnswEmbeddingStore();
+        }
+        return chromaEmbeddingStore();
+    }
+    
+    private EmbeddingStore<TextSegment> hnswEmbeddingStore() {
+        logger.info(" Configuration de l'EmbeddingStore HNSW (en mémoire)...");
+        logger.info(" Snapshot: {}", hnswFile);
+        logger.info(" M={}, efConstruction={}, efSearch={}", hnswM, hnswEfConstruction, hnswEfSearch);
+        logger.info(" Quantification: {}", hnswQuantization);
+        
+        HnswOptions options = new HnswOptions(
+            Paths.get(hnswFile),
+            hnswM,
+            hnswEfConstruction,
+            hnswEfSearch,
+            hnswSnapshotIntervalSeconds,
+            "int8".equalsIgnoreCase(hnswQuantization),
+            Paths.get(hnswVectorsDirectory),
+            hnswRerankFactor,
+            hnswRecallSampleRate
+        );
+        return new HnswEmbeddingStore(options);
+    }
+    
+    private EmbeddingStore<TextSegment> chromaEmbeddingStore() {
         logger.info(" Configuration de ChromaDB EmbeddingStore...");
         logger.info(" ChromaDB URL: {}", chromaDbUrl);
         logger.info(" Collection: {}", chromaDbCollection);
@@ -77,8 +194,8 @@ public class LangChainConfig {
                 .baseUrl(chromaDbUrl)
                 .collectionName(chromaDbCollection)
                 .timeout(Duration.ofSeconds(30))
-                .logRequests(true)  
-                .logResponses(true) 
+                .logRequests(chromaLogRequests)
+                .logResponses(chromaLogRequests)
                 .build();
             
             logger.info(" ChromaDB connecté avec succès (API v2) !");
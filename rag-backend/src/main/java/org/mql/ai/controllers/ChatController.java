@@ -1,13 +1,23 @@
 package org.mql.ai.controllers;
 
+import org.mql.ai.business.AnswerStreamListener;
 import org.mql.ai.business.RagService;
+import org.mql.ai.business.StartupIndexer;
+import org.mql.ai.exceptions.LlmOverloadedException;
 import org.mql.ai.models.ChatRequest;
 import org.mql.ai.models.ChatResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
 
@@ -18,9 +28,15 @@ public class ChatController {
     
     private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
     private final RagService ragService;
+    private final StartupIndexer startupIndexer;
+    private final long streamTimeoutMs;
 
-    public ChatController(RagService ragService) {
+    public ChatController(RagService ragService,
+                          StartupIndexer startupIndexer,
+                          @Value("${rag.timeout-seconds:120}") int timeoutSeconds) {
         this.ragService = ragService;
+        this.startupIndexer = startupIndexer;
+        this.streamTimeoutMs = timeoutSeconds * 1000L;
     }
 
     
@@ -47,6 +63,83 @@ public class ChatController {
     }
 
     
+    /**
+     * Réponse en streaming (Server-Sent Events)
+     *  /api/chat/stream
+     * Événements: "token" ({"token": ...}) puis "done" (ChatResponse avec sources et timings)
+     * ou "error" ({"error": ...})
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamQuestion(@RequestBody ChatRequest request) {
+        logger.info(" Question reçue (streaming): {}", request.getQuestion());
+        
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        
+        if (request.getQuestion() == null || request.getQuestion().trim().isEmpty()) {
+            sendEvent(emitter, "error", Map.of("error", "La question ne peut pas être vide"));
+            emitter.complete();
+            return ResponseEntity.ok(emitter);
+        }
+        
+        try {
+            ragService.streamQuestion(request, new AnswerStreamListener() {
+            
+                @Override
+                public void onToken(String token) {
+                    sendEvent(emitter, "token", Map.of("token", token));
+                }
+            
+                @Override
+                public void onComplete(ChatResponse response) {
+                    logger.info(" Réponse streamée avec succès");
+                    sendEvent(emitter, "done", response);
+                    emitter.complete();
+                }
+            
+                @Override
+                public void onError(String errorMessage) {
+                    logger.error(" Erreur: {}", errorMessage);
+                    sendEvent(emitter, "error", Map.of("error", errorMessage));
+                    emitter.complete();
+                }
+            });
+        } catch (LlmOverloadedException e) {
+            // refus avant le premier événement : vrai 503 plutôt qu'un flux SSE en erreur
+            logger.warn(" Streaming refusé: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        }
+        
+        return ResponseEntity.ok(emitter);
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamQuestion(
+            @RequestParam String question,
+            @RequestParam(name = "include_sources", defaultValue = "true") boolean includeSources,
+            @RequestParam(required = false) String language) {
+        return streamQuestion(new ChatRequest(question, includeSources, language));
+    }
+    
+    
+    // le client peut fermer la connexion en cours de génération : l'échec remonte à l'émetteur
+    // des événements, qui cesse d'envoyer à ce client
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(name)
+                    .data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            logger.debug(" Envoi SSE impossible ({}): {}", name, e.getMessage());
+            throw new UncheckedIOException(e);
+        } catch (IllegalStateException e) {
+            logger.debug(" Envoi SSE impossible ({}): {}", name, e.getMessage());
+            throw e;
+        }
+    }
+
+    
     // juste pour vérification de fonctionnement
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
@@ -63,7 +156,9 @@ public class ChatController {
         int count = ragService.getIndexedDocumentsCount();
         return ResponseEntity.ok(Map.of(
             "indexedDocuments", count,
-            "status", "ready"
+            "status", startupIndexer.isReady() ? "ready" : "indexing",
+            "caches", ragService.getCacheStats(),
+            "vectorStore", ragService.getVectorStoreStats()
         ));
     }
 
@@ -1,11 +1,18 @@
 package org.mql.ai.controllers;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
+import org.mql.ai.business.ChunkedUploadService;
+import org.mql.ai.business.IngestionJobService;
 import org.mql.ai.business.PDFLoaderService;
 import org.mql.ai.business.RagService;
+import org.mql.ai.exceptions.UploadRejectedException;
 import org.mql.ai.models.DocumentMetadata;
+import org.mql.ai.models.IngestionJob;
+import org.mql.ai.models.UploadSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -16,11 +23,14 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @RestController
 @RequestMapping("/api/documents")
 @CrossOrigin(origins = "*")
@@ -30,15 +40,22 @@ class PDFController {
     
     private final PDFLoaderService pdfLoaderService;
     private final RagService ragService;
+    private final IngestionJobService ingestionJobService;
+    private final ChunkedUploadService chunkedUploadService;
 
-    public PDFController(PDFLoaderService pdfLoaderService, RagService ragService) {
+    public PDFController(PDFLoaderService pdfLoaderService, RagService ragService,
+                         IngestionJobService ingestionJobService,
+                         ChunkedUploadService chunkedUploadService) {
         this.pdfLoaderService = pdfLoaderService;
         this.ragService = ragService;
+        this.ingestionJobService = ingestionJobService;
+        this.chunkedUploadService = chunkedUploadService;
     }
 
     /**
-     * Upload et indexation d'un nouveau PDF
+     * Upload d'un nouveau PDF, indexé en arrière-plan
      *  /api/documents/upload
+     * Renvoie 202 avec le job à suivre sur /api/documents/jobs/{id}
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> uploadPDF(@RequestParam("file") MultipartFile file) {
@@ -49,21 +66,24 @@ class PDFController {
                     .body(Map.of("error", "Le fichier est vide"));
         }
         
-        if (!file.getOriginalFilename().toLowerCase().endsWith(".pdf")) {
+        if (file.getOriginalFilename() == null || !file.getOriginalFilename().toLowerCase().endsWith(".pdf")) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "Seuls les fichiers PDF sont acceptés"));
         }
         
         try {
-            byte[] fileContent = file.getBytes();
-            DocumentMetadata metadata = pdfLoaderService.uploadAndIndexPDF(
-                fileContent, 
-                file.getOriginalFilename()
-            );
+            IngestionJob job;
+            try (InputStream content = file.getInputStream()) {
+                job = ingestionJobService.submitUpload(content, file.getOriginalFilename());
+            }
             
-            logger.info(" Document indexé: {}", file.getOriginalFilename());
-            return ResponseEntity.ok(metadata);
+            logger.info(" Document en cours d'indexation: {} (job {})", file.getOriginalFilename(), job.getId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/documents/jobs/" + job.getId()))
+                    .body(job);
             
+        } catch (UploadRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             logger.error(" Erreur lors de l'upload", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -71,6 +91,133 @@ class PDFController {
         }
     }
 
+    /**
+     * Démarre un upload découpé (fichiers au-delà de la limite multipart)
+     *  /api/documents/uploads?fileName=cours.pdf&size=123456
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<?> startChunkedUpload(@RequestParam String fileName, @RequestParam long size) {
+        try {
+            UploadSession session = chunkedUploadService.start(fileName, size);
+            return ResponseEntity.created(URI.create("/api/documents/uploads/" + session.getId()))
+                    .body(session);
+        } catch (UploadRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            logger.error(" Erreur lors de la création de l'upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Octets déjà reçus : le client reprend l'envoi à receivedBytes
+     *  /api/documents/uploads/{id}
+     */
+    @GetMapping("/uploads/{id}")
+    public ResponseEntity<?> getChunkedUpload(@PathVariable String id) {
+        return chunkedUploadService.getSession(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Upload inconnu: " + id)));
+    }
+
+    /**
+     * Ajoute un morceau (corps binaire brut) à partir de offset
+     *  /api/documents/uploads/{id}?offset=0
+     */
+    @PutMapping(value = "/uploads/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> appendChunk(@PathVariable String id, @RequestParam long offset,
+                                         HttpServletRequest request) {
+        if (chunkedUploadService.getSession(id).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Upload inconnu: " + id));
+        }
+        
+        try (InputStream content = request.getInputStream()) {
+            return ResponseEntity.ok(chunkedUploadService.appendChunk(id, offset, content));
+        } catch (IllegalStateException e) {
+            long receivedBytes = chunkedUploadService.getSession(id).map(UploadSession::getReceivedBytes).orElse(0L);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "receivedBytes", receivedBytes));
+        } catch (UploadRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            logger.error(" Erreur lors de la réception d'un morceau", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Termine l'upload découpé et lance l'indexation
+     *  /api/documents/uploads/{id}/complete
+     */
+    @PostMapping("/uploads/{id}/complete")
+    public ResponseEntity<?> completeChunkedUpload(@PathVariable String id) {
+        if (chunkedUploadService.getSession(id).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Upload inconnu: " + id));
+        }
+        
+        try {
+            IngestionJob job = chunkedUploadService.complete(id);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/documents/jobs/" + job.getId()))
+                    .body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (UploadRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            logger.error(" Erreur lors de la finalisation de l'upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Annule un upload découpé
+     *  /api/documents/uploads/{id}
+     */
+    @DeleteMapping("/uploads/{id}")
+    public ResponseEntity<?> abortChunkedUpload(@PathVariable String id) {
+        if (!chunkedUploadService.abort(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Upload inconnu: " + id));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // erreur du client : 400, 413 ou 404 selon la raison, sans trace d'erreur serveur
+    private ResponseEntity<?> rejected(UploadRejectedException e) {
+        logger.warn(" Upload refusé: {}", e.getMessage());
+        return ResponseEntity.status(e.getStatus())
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    /**
+     * État d'un job d'indexation (progression, débit, erreur)
+     *  /api/documents/jobs/{id}
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        return ingestionJobService.getJob(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Job inconnu: " + id)));
+    }
+
+    /**
+     * Jobs d'indexation récents
+     *  /api/documents/jobs
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<IngestionJob>> getJobs() {
+        return ResponseEntity.ok(ingestionJobService.getJobs());
+    }
+
     /**
      * Indexer tous les PDFs du répertoire
      *  /api/documents/index-all
@@ -139,6 +286,15 @@ class PDFController {
         return ResponseEntity.ok(documents);
     }
     
+    /**
+     * Débit par étage du dernier pipeline d'ingestion
+     *  /api/documents/ingestion-stats
+     */
+    @GetMapping("/ingestion-stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getIngestionStats() {
+        return ResponseEntity.ok(pdfLoaderService.getIngestionStats());
+    }
+    
     /**
      * Force la ré-indexation même si déjà indexé
      *  /api/documents/force-reindex
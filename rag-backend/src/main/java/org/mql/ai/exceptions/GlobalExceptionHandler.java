@@ -28,6 +28,33 @@ class GlobalExceptionHandler {
                 ));
     }
 
+    // modèle saturé : réponse immédiate, le client réessaie après Retry-After
+    @org.springframework.web.bind.annotation.ExceptionHandler(LlmOverloadedException.class)
+    public org.springframework.http.ResponseEntity<java.util.Map<String, String>> 
+            handleLlmOverloadedException(LlmOverloadedException e) {
+        logger.warn(" Requête refusée: {}", e.getMessage());
+        return org.springframework.http.ResponseEntity
+                .status(org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE)
+                .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(java.util.Map.of(
+                    "error", "LLM Overloaded",
+                    "message", e.getMessage()
+                ));
+    }
+
+    // erreur du client (nom, taille, upload inconnu, conflit de nom) : 400, 413, 404 ou 409
+    @org.springframework.web.bind.annotation.ExceptionHandler(UploadRejectedException.class)
+    public org.springframework.http.ResponseEntity<java.util.Map<String, String>> 
+            handleUploadRejectedException(UploadRejectedException e) {
+        logger.warn(" Upload refusé: {}", e.getMessage());
+        return org.springframework.http.ResponseEntity
+                .status(e.getStatus())
+                .body(java.util.Map.of(
+                    "error", "Upload Rejected",
+                    "message", e.getMessage()
+                ));
+    }
+
     @org.springframework.web.bind.annotation.ExceptionHandler(Exception.class)
     public org.springframework.http.ResponseEntity<java.util.Map<String, String>> 
             handleGenericException(Exception e) {
@@ -0,0 +1,15 @@
+package org.mql.ai.exceptions;
+
+// trop de générations en cours et file d'attente pleine : le client doit réessayer plus tard
+public class LlmOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public LlmOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
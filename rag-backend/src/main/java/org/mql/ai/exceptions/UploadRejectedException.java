@@ -0,0 +1,37 @@
+package org.mql.ai.exceptions;
+
+// requête d'upload invalide (erreur du client) : ne doit jamais produire un 500
+public class UploadRejectedException extends RuntimeException {
+
+    public enum Reason {
+        INVALID(400),
+        TOO_LARGE(413),
+        NOT_FOUND(404),
+        CONFLICT(409);
+
+        private final int status;
+
+        Reason(int status) {
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private final Reason reason;
+
+    public UploadRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public int getStatus() {
+        return reason.getStatus();
+    }
+}
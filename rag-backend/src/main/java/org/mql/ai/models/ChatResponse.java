@@ -1,6 +1,7 @@
 package org.mql.ai.models;
 
 import java.util.List;
+import java.util.Map;
 
 public class ChatResponse {
 	private String answer;
@@ -8,6 +9,9 @@ public class ChatResponse {
     private long processingTimeMs;
     private boolean success;
     private String errorMessage;
+    private Map<String, Long> timings;
+    private boolean cached;
+    private boolean coalesced;
 
     public ChatResponse() {}
 
@@ -71,4 +75,28 @@ public class ChatResponse {
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
+
+    public Map<String, Long> getTimings() {
+        return timings;
+    }
+
+    public void setTimings(Map<String, Long> timings) {
+        this.timings = timings;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    public void setCoalesced(boolean coalesced) {
+        this.coalesced = coalesced;
+    }
 }
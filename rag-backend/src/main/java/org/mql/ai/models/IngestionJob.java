@@ -0,0 +1,112 @@
+package org.mql.ai.models;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// suivi d'une indexation asynchrone (upload) : état, progression, débit, erreur
+public class IngestionJob {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final String fileName;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicInteger chunksEmbedded = new AtomicInteger();
+    private volatile State state = State.QUEUED;
+    private volatile int chunksTotal;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private volatile DocumentMetadata document;
+
+    public IngestionJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+    }
+
+    public void start() {
+        startedAt = LocalDateTime.now();
+        state = State.RUNNING;
+    }
+
+    public void complete(DocumentMetadata document) {
+        this.document = document;
+        finishedAt = LocalDateTime.now();
+        state = State.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        state = State.FAILED;
+    }
+
+    public void addChunksEmbedded(int count) {
+        chunksEmbedded.addAndGet(count);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getChunksTotal() {
+        return chunksTotal;
+    }
+
+    public void setChunksTotal(int chunksTotal) {
+        this.chunksTotal = chunksTotal;
+    }
+
+    public int getChunksEmbedded() {
+        return chunksEmbedded.get();
+    }
+
+    // chunks embeddés par seconde depuis le début du traitement
+    public double getChunksPerSecond() {
+        if (startedAt == null) {
+            return 0.0;
+        }
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        long millis = Duration.between(startedAt, end).toMillis();
+        return millis == 0 ? 0.0 : chunksEmbedded.get() * 1000.0 / millis;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public DocumentMetadata getDocument() {
+        return document;
+    }
+
+    @Override
+    public String toString() {
+        return "IngestionJob{" +
+                "id='" + id + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", state=" + state +
+                ", chunks=" + chunksEmbedded.get() + "/" + chunksTotal +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package org.mql.ai.models;
+
+import java.time.LocalDateTime;
+
+// upload découpé en morceaux : le client reprend à receivedBytes après une coupure
+public class UploadSession {
+
+    private String id;
+    private String fileName;
+    private long totalSize;
+    private long receivedBytes;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastActivity;
+
+    public UploadSession() {
+    }
+
+    public UploadSession(String id, String fileName, long totalSize) {
+        this.id = id;
+        this.fileName = fileName;
+        this.totalSize = totalSize;
+        this.createdAt = LocalDateTime.now();
+        this.lastActivity = createdAt;
+    }
+
+    public boolean isComplete() {
+        return receivedBytes == totalSize;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public void setReceivedBytes(long receivedBytes) {
+        this.receivedBytes = receivedBytes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(LocalDateTime lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+
+    @Override
+    public String toString() {
+        return "UploadSession{" +
+                "id='" + id + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", receivedBytes=" + receivedBytes +
+                ", totalSize=" + totalSize +
+                '}';
+    }
+}
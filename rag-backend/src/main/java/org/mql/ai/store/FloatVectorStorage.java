@@ -0,0 +1,67 @@
+package org.mql.ai.store;
+
+import java.util.Arrays;
+
+// vecteurs float contigus en heap : nœud i -> [i * dimension, (i + 1) * dimension)
+final class FloatVectorStorage implements VectorStorage {
+
+    private final int dimension;
+    private volatile float[] data;
+
+    FloatVectorStorage(int dimension, int initialCapacity) {
+        this.dimension = dimension;
+        this.data = new float[Math.max(16, initialCapacity) * dimension];
+    }
+
+    @Override
+    public void set(int node, float[] vector) {
+        float[] current = data;
+        if ((node + 1) * dimension > current.length) {
+            current = Arrays.copyOf(current, Math.max(node + 1, current.length / dimension * 2) * dimension);
+            data = current;
+        }
+        System.arraycopy(vector, 0, current, node * dimension, dimension);
+    }
+
+    @Override
+    public float score(float[] query, int node) {
+        float[] current = data;
+        int offset = node * dimension;
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * current[offset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float similarity(int a, int b) {
+        float[] current = data;
+        int offsetA = a * dimension;
+        int offsetB = b * dimension;
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            sum += current[offsetA + i] * current[offsetB + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float[] vector(int node) {
+        return Arrays.copyOfRange(data, node * dimension, (node + 1) * dimension);
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+
+    @Override
+    public long memoryBytes() {
+        return (long) data.length * Float.BYTES;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,688 @@
+package org.mql.ai.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * EmbeddingStore en mémoire (dans la JVM) basé sur un graphe HNSW : remplace l'aller-retour HTTP vers ChromaDB.
+ * Les recherches sont concurrentes et sans verrou, les écritures sont sérialisées.
+ * L'index est sauvegardé périodiquement dans un snapshot (écriture dans un fichier temporaire puis renommage)
+ * et rechargé au démarrage ; quand trop de nœuds sont supprimés, le graphe est reconstruit.
+ * Cette reconstruction est synchrone, dans le removeAll qui franchit le seuil, sous le verrou
+ * d'écriture : O(n log n) insertions, les ajouts concurrents attendent, les recherches continuent.
+ * En mode quantifié, le graphe est parcouru sur des codes int8 puis les meilleurs candidats sont
+ * réordonnés avec les vecteurs exacts ; un échantillon de recherches mesure le rappel face à une recherche exacte.
+ */
+public class HnswEmbeddingStore implements EmbeddingStore<TextSegment>, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HnswEmbeddingStore.class);
+
+    private static final int MAGIC = 0x52414748; // "RAGH"
+    private static final int VERSION = 1;
+    private static final double COMPACTION_RATIO = 0.25;
+
+    private final HnswOptions options;
+    private final Path snapshotFile;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile HnswGraph graph;
+    private volatile boolean dirty;
+    private ScheduledExecutorService snapshotScheduler;
+
+    private final ExecutorService recallExecutor;
+    private final AtomicBoolean recallRunning = new AtomicBoolean();
+    private final AtomicLong recallSamples = new AtomicLong();
+    private final DoubleAdder recallSum = new DoubleAdder();
+
+    public HnswEmbeddingStore(HnswOptions options) {
+        this.options = options;
+        this.snapshotFile = options.snapshotFile();
+        this.m = options.m();
+        this.efConstruction = options.efConstruction();
+        this.efSearch = Math.max(1, options.efSearch());
+        load();
+
+        recallExecutor = options.recallSampleRate() > 0 ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hnsw-recall");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        long snapshotIntervalSeconds = options.snapshotIntervalSeconds();
+        if (snapshotFile != null && snapshotIntervalSeconds > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hnsw-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::saveIfDirty,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // --- écriture ---
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment segment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(segment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = randomIds(embeddings.size());
+        addAll(ids, embeddings, null);
+        return ids;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> segments) {
+        List<String> ids = randomIds(embeddings.size());
+        addAll(ids, embeddings, segments);
+        return ids;
+    }
+
+    private void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments) {
+        if (embeddings.isEmpty()) {
+            return;
+        }
+        if (segments != null && segments.size() != embeddings.size()) {
+            throw new IllegalArgumentException("Nombre d'embeddings et de segments différent");
+        }
+
+        writeLock.lock();
+        try {
+            HnswGraph current = graphFor(embeddings.get(0).dimension());
+            for (int i = 0; i < embeddings.size(); i++) {
+                float[] vector = embeddings.get(i).vector();
+                if (vector.length != current.dimension()) {
+                    throw new IllegalArgumentException("Dimension " + vector.length
+                        + " différente de celle de l'index (" + current.dimension() + ")");
+                }
+                current.insert(ids.get(i), HnswGraph.normalize(vector), segments == null ? null : segments.get(i));
+            }
+            dirty = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        writeLock.lock();
+        try {
+            HnswGraph current = graph;
+            if (current == null) {
+                return;
+            }
+            for (String id : ids) {
+                dirty |= current.remove(id);
+            }
+            compactIfNeeded();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        writeLock.lock();
+        try {
+            HnswGraph current = graph;
+            if (current == null) {
+                return;
+            }
+            for (int node = 0; node < current.size(); node++) {
+                HnswGraph.Node n = current.node(node);
+                if (!n.deleted && matches(n, filter)) {
+                    dirty |= current.remove(n.id);
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        writeLock.lock();
+        try {
+            HnswGraph replaced = graph;
+            graph = null;
+            retire(replaced);
+            dirty = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // --- lecture ---
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        HnswGraph current = acquire();
+        if (current == null) {
+            return new EmbeddingSearchResult<>(List.of());
+        }
+        try {
+            return search(current, request);
+        } finally {
+            current.release();
+        }
+    }
+
+    // graphe courant, son stockage reste ouvert jusqu'à release() même s'il est remplacé entre-temps
+    private HnswGraph acquire() {
+        while (true) {
+            HnswGraph current = graph;
+            if (current == null || current.retain()) {
+                return current;
+            }
+        }
+    }
+
+    private EmbeddingSearchResult<TextSegment> search(HnswGraph current, EmbeddingSearchRequest request) {
+        if (current.liveCount() == 0) {
+            return new EmbeddingSearchResult<>(List.of());
+        }
+
+        float[] query = HnswGraph.normalize(request.queryEmbedding().vector());
+        int maxResults = request.maxResults();
+        List<HnswGraph.Candidate> candidates;
+        if (request.filter() == null) {
+            int ef = Math.max(efSearch, maxResults * Math.max(1, options.rerankFactor()));
+            candidates = live(current, current.search(query, ef + Math.min(current.deletedCount(), maxResults)));
+            if (!current.storage().isExact()) {
+                candidates = rerank(current, query, candidates, maxResults * Math.max(1, options.rerankFactor()));
+            }
+        } else {
+            candidates = exactFiltered(current, query, request.filter());
+        }
+
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(maxResults);
+        for (HnswGraph.Candidate candidate : candidates) {
+            HnswGraph.Node node = current.node(candidate.node());
+            double score = RelevanceScore.fromCosineSimilarity(candidate.score());
+            if (score < request.minScore()) {
+                break;
+            }
+            matches.add(new EmbeddingMatch<>(score, node.id,
+                Embedding.from(current.vector(candidate.node())), node.segment));
+            if (matches.size() == maxResults) {
+                break;
+            }
+        }
+
+        if (request.filter() == null && shouldSampleRecall()) {
+            sampleRecall(current, query, matches);
+        }
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    private List<HnswGraph.Candidate> live(HnswGraph current, List<HnswGraph.Candidate> candidates) {
+        List<HnswGraph.Candidate> alive = new ArrayList<>(candidates.size());
+        for (HnswGraph.Candidate candidate : candidates) {
+            if (!current.node(candidate.node()).deleted) {
+                alive.add(candidate);
+            }
+        }
+        return alive;
+    }
+
+    // scores approchés (int8) -> scores exacts sur les vecteurs relus depuis le disque
+    private List<HnswGraph.Candidate> rerank(HnswGraph current, float[] query,
+                                             List<HnswGraph.Candidate> candidates, int limit) {
+        List<HnswGraph.Candidate> reranked = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (int i = 0; i < candidates.size() && i < limit; i++) {
+            int node = candidates.get(i).node();
+            reranked.add(new HnswGraph.Candidate(node, dot(query, current.vector(node))));
+        }
+        reranked.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return reranked;
+    }
+
+    private boolean shouldSampleRecall() {
+        return recallExecutor != null && ThreadLocalRandom.current().nextDouble() < options.recallSampleRate();
+    }
+
+    // rappel@k mesuré hors du chemin de la requête, un échantillon à la fois
+    private void sampleRecall(HnswGraph current, float[] query, List<EmbeddingMatch<TextSegment>> matches) {
+        if (matches.isEmpty() || !recallRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Set<String> returned = new HashSet<>();
+        matches.forEach(match -> returned.add(match.embeddingId()));
+        // la recherche appelante détient déjà une référence : retain() ne peut pas échouer
+        current.retain();
+        try {
+            recallExecutor.execute(() -> {
+                try {
+                    List<HnswGraph.Candidate> exact = exactTop(current, query, matches.size());
+                    long found = exact.stream().filter(c -> returned.contains(current.node(c.node()).id)).count();
+                    recallSum.add((double) found / exact.size());
+                    recallSamples.incrementAndGet();
+                } catch (RuntimeException e) {
+                    logger.debug(" Mesure du rappel HNSW impossible: {}", e.getMessage());
+                } finally {
+                    current.release();
+                    recallRunning.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            current.release();
+            recallRunning.set(false);
+        }
+    }
+
+    private List<HnswGraph.Candidate> exactTop(HnswGraph current, float[] query, int k) {
+        PriorityQueue<HnswGraph.Candidate> top = new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score()));
+        int limit = current.size();
+        for (int node = 0; node < limit; node++) {
+            if (current.node(node).deleted) {
+                continue;
+            }
+            top.add(new HnswGraph.Candidate(node, dot(query, current.vector(node))));
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+        return new ArrayList<>(top);
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    // filtre sur les métadonnées (vérifications, suppressions) : parcours exact des nœuds vivants
+    private List<HnswGraph.Candidate> exactFiltered(HnswGraph current, float[] query, Filter filter) {
+        List<HnswGraph.Candidate> candidates = new ArrayList<>();
+        int limit = current.size();
+        for (int node = 0; node < limit; node++) {
+            HnswGraph.Node n = current.node(node);
+            if (!n.deleted && matches(n, filter)) {
+                candidates.add(new HnswGraph.Candidate(node, dot(query, current.vector(node))));
+            }
+        }
+        candidates.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return candidates;
+    }
+
+    private boolean matches(HnswGraph.Node node, Filter filter) {
+        return node.segment != null && filter.test(node.segment.metadata());
+    }
+
+    public int size() {
+        HnswGraph current = graph;
+        return current == null ? 0 : current.liveCount();
+    }
+
+    public Map<String, Object> getStats() {
+        HnswGraph current = graph;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", "hnsw");
+        stats.put("vectors", current == null ? 0 : current.liveCount());
+        stats.put("deleted", current == null ? 0 : current.deletedCount());
+        stats.put("dimension", current == null ? 0 : current.dimension());
+        stats.put("quantization", options.quantized() ? "int8" : "none");
+        stats.put("vectorMemoryBytes", current == null ? 0 : current.storage().memoryBytes());
+        long samples = recallSamples.get();
+        stats.put("recallSamples", samples);
+        stats.put("recall", samples == 0 ? null : recallSum.sum() / samples);
+        stats.put("m", m);
+        stats.put("efConstruction", efConstruction);
+        stats.put("efSearch", efSearch);
+        stats.put("snapshot", snapshotFile == null ? "" : snapshotFile.toString());
+        return stats;
+    }
+
+    private HnswGraph graphFor(int dimension) {
+        HnswGraph current = graph;
+        if (current == null) {
+            current = newGraph(dimension, 1024);
+            graph = current;
+        } else if (current.dimension() != dimension && current.liveCount() == 0) {
+            // changement de modèle d'embedding : les anciens vecteurs ont tous été retirés
+            logger.info(" Dimension de l'index HNSW: {} -> {}", current.dimension(), dimension);
+            HnswGraph replaced = current;
+            current = newGraph(dimension, 1024);
+            graph = current;
+            retire(replaced);
+        }
+        return current;
+    }
+
+    private HnswGraph newGraph(int dimension, int capacity) {
+        VectorStorage storage = options.quantized()
+            ? new QuantizedVectorStorage(dimension, capacity, options.vectorsDirectory())
+            : new FloatVectorStorage(dimension, capacity);
+        return new HnswGraph(dimension, m, efConstruction, capacity, storage);
+    }
+
+    // à appeler après avoir publié le graphe remplaçant : le stockage est fermé
+    // quand la dernière recherche encore en cours sur l'ancien graphe le libère
+    private void retire(HnswGraph replaced) {
+        if (replaced != null) {
+            replaced.release();
+        }
+    }
+
+    private List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+
+    // reconstruit le graphe sans les nœuds supprimés ; les lectures continuent sur l'ancien graphe.
+    // Appelé sous writeLock : le removeAll (watcher, réindexation) qui déclenche la compaction
+    // paie la reconstruction complète, et les écritures attendent jusqu'à la fin
+    private void compactIfNeeded() {
+        HnswGraph current = graph;
+        if (current == null || current.deletedCount() < Math.max(64, current.size() * COMPACTION_RATIO)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        HnswGraph rebuilt = newGraph(current.dimension(), current.liveCount());
+        for (int node = 0; node < current.size(); node++) {
+            HnswGraph.Node n = current.node(node);
+            if (!n.deleted) {
+                rebuilt.insert(n.id, current.vector(node), n.segment);
+            }
+        }
+        graph = rebuilt;
+        retire(current);
+        dirty = true;
+        logger.info(" Index HNSW compacté: {} nœuds supprimés retirés en {}ms",
+            current.deletedCount(), System.currentTimeMillis() - start);
+    }
+
+    // --- snapshot ---
+
+    private void saveIfDirty() {
+        if (dirty) {
+            try {
+                save();
+            } catch (RuntimeException e) {
+                logger.error(" Sauvegarde de l'index HNSW impossible", e);
+            }
+        }
+    }
+
+    // copie de la structure sous writeLock, écriture disque hors verrou : les ajouts ne sont pas bloqués.
+    // synchronized : deux sauvegardes (planifiée et close) ne se croisent pas
+    public synchronized void save() {
+        if (snapshotFile == null) {
+            return;
+        }
+        GraphSnapshot snapshot;
+        writeLock.lock();
+        try {
+            snapshot = GraphSnapshot.of(graph);
+            dirty = false;
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "hnsw", ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                write(out, snapshot);
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.info(" Snapshot HNSW écrit: {} vecteurs en {}ms",
+                snapshot == null ? 0 : snapshot.liveCount, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            dirty = true;
+            throw new UncheckedIOException("Impossible d'écrire le snapshot HNSW: " + snapshotFile, e);
+        } finally {
+            if (snapshot != null) {
+                snapshot.graph.release();
+            }
+        }
+    }
+
+    /**
+     * État du graphe figé sous writeLock : drapeaux de suppression et listes de voisins (tableaux
+     * remplacés, jamais modifiés). Les vecteurs des nœuds publiés ne changent plus, ils sont lus
+     * pendant l'écriture ; le graphe est retenu pour que son stockage ne soit pas fermé entre-temps.
+     */
+    private record GraphSnapshot(HnswGraph graph, int size, int liveCount, int entryPoint, boolean[] deleted,
+            int[][][] neighbors) {
+
+        static GraphSnapshot of(HnswGraph graph) {
+            if (graph == null || !graph.retain()) {
+                return null;
+            }
+            int size = graph.size();
+            boolean[] deleted = new boolean[size];
+            int[][][] neighbors = new int[size][][];
+            for (int node = 0; node < size; node++) {
+                HnswGraph.Node n = graph.node(node);
+                deleted[node] = n.deleted;
+                neighbors[node] = new int[n.level + 1][];
+                for (int l = 0; l <= n.level; l++) {
+                    neighbors[node][l] = n.neighbors.get(l);
+                }
+            }
+            return new GraphSnapshot(graph, size, graph.liveCount(), graph.entryPointNode(), deleted, neighbors);
+        }
+    }
+
+    // format : en-tête, puis par nœud : id, supprimé, vecteur, voisins par niveau, segment
+    private void write(DataOutputStream out, GraphSnapshot snapshot) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        if (snapshot == null) {
+            out.writeInt(0);
+            return;
+        }
+        HnswGraph current = snapshot.graph;
+        out.writeInt(snapshot.size);
+        out.writeInt(current.dimension());
+        out.writeInt(snapshot.entryPoint);
+
+        for (int node = 0; node < snapshot.size; node++) {
+            HnswGraph.Node n = current.node(node);
+            writeString(out, n.id);
+            out.writeBoolean(snapshot.deleted[node]);
+            for (float v : current.vector(node)) {
+                out.writeFloat(v);
+            }
+            int[][] levels = snapshot.neighbors[node];
+            out.writeInt(levels.length - 1);
+            for (int[] neighbors : levels) {
+                out.writeInt(neighbors.length);
+                for (int neighbor : neighbors) {
+                    out.writeInt(neighbor);
+                }
+            }
+            writeSegment(out, n.segment);
+        }
+    }
+
+    private void load() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            logger.info(" Aucun snapshot HNSW ({}), index vide", snapshotFile);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn(" Snapshot HNSW {} incompatible, index vide", snapshotFile);
+                return;
+            }
+            int size = in.readInt();
+            if (size == 0) {
+                return;
+            }
+            int dimension = in.readInt();
+            int entryPoint = in.readInt();
+
+            HnswGraph loaded = newGraph(dimension, size);
+            for (int node = 0; node < size; node++) {
+                String id = readString(in);
+                boolean deleted = in.readBoolean();
+                float[] vector = new float[dimension];
+                for (int i = 0; i < dimension; i++) {
+                    vector[i] = in.readFloat();
+                }
+                int[][] neighbors = new int[in.readInt() + 1][];
+                for (int l = 0; l < neighbors.length; l++) {
+                    neighbors[l] = new int[in.readInt()];
+                    for (int i = 0; i < neighbors[l].length; i++) {
+                        neighbors[l][i] = in.readInt();
+                    }
+                }
+                loaded.restore(id, vector, readSegment(in), neighbors, deleted);
+            }
+            loaded.restoreEntryPoint(entryPoint);
+            graph = loaded;
+
+            logger.info(" Snapshot HNSW chargé: {} vecteurs (dimension {}) en {}ms",
+                loaded.liveCount(), dimension, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            logger.error(" Snapshot HNSW illisible ({}), index vide", snapshotFile, e);
+            HnswGraph replaced = graph;
+            graph = null;
+            retire(replaced);
+        }
+    }
+
+    private static void writeSegment(DataOutputStream out, TextSegment segment) throws IOException {
+        out.writeBoolean(segment != null);
+        if (segment == null) {
+            return;
+        }
+        writeString(out, segment.text());
+        Map<String, Object> metadata = segment.metadata().toMap();
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            writeString(out, entry.getKey());
+            Object value = entry.getValue();
+            if (value instanceof Integer i) {
+                out.writeByte('I');
+                out.writeInt(i);
+            } else if (value instanceof Long l) {
+                out.writeByte('L');
+                out.writeLong(l);
+            } else if (value instanceof Float f) {
+                out.writeByte('F');
+                out.writeFloat(f);
+            } else if (value instanceof Double d) {
+                out.writeByte('D');
+                out.writeDouble(d);
+            } else if (value instanceof UUID u) {
+                out.writeByte('U');
+                writeString(out, u.toString());
+            } else {
+                out.writeByte('S');
+                writeString(out, String.valueOf(value));
+            }
+        }
+    }
+
+    private static TextSegment readSegment(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String text = readString(in);
+        int count = in.readInt();
+        Map<String, Object> metadata = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String key = readString(in);
+            byte type = in.readByte();
+            Object value = switch (type) {
+                case 'I' -> in.readInt();
+                case 'L' -> in.readLong();
+                case 'F' -> in.readFloat();
+                case 'D' -> in.readDouble();
+                case 'U' -> UUID.fromString(readString(in));
+                default -> readString(in);
+            };
+            metadata.put(key, value);
+        }
+        return TextSegment.from(text, Metadata.from(metadata));
+    }
+
+    // writeUTF est limité à 64 Ko : longueur + octets UTF-8
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        if (recallExecutor != null) {
+            recallExecutor.shutdownNow();
+        }
+        saveIfDirty();
+        writeLock.lock();
+        try {
+            HnswGraph replaced = graph;
+            graph = null;
+            retire(replaced);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package org.mql.ai.store;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Graphe HNSW (Hierarchical Navigable Small World) sur des vecteurs normalisés :
+ * la similarité cosinus se réduit à un produit scalaire.
+ * Les vecteurs sont délégués à un VectorStorage (floats ou codes int8).
+ * Un seul écrivain à la fois (l'appelant sérialise les insertions), lectures concurrentes sans verrou :
+ * un nœud n'est visible qu'une fois "size" publié, les listes de voisins sont remplacées (jamais modifiées).
+ */
+final class HnswGraph {
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final VectorStorage storage;
+    private volatile Node[] nodes;
+    private volatile int size;
+    private volatile EntryPoint entryPoint;
+
+    private final Map<String, Integer> idToNode = new HashMap<>();
+    private final AtomicInteger deletedCount = new AtomicInteger();
+    // le store (1) + les recherches en cours : le stockage est fermé à la dernière libération
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    static final class Node {
+        final String id;
+        final TextSegment segment;
+        final int level;
+        final AtomicReferenceArray<int[]> neighbors;
+        volatile boolean deleted;
+
+        Node(String id, TextSegment segment, int level) {
+            this.id = id;
+            this.segment = segment;
+            this.level = level;
+            this.neighbors = new AtomicReferenceArray<>(level + 1);
+            for (int l = 0; l <= level; l++) {
+                neighbors.set(l, new int[0]);
+            }
+        }
+    }
+
+    private record EntryPoint(int node, int level) {}
+
+    record Candidate(int node, float score) {}
+
+    HnswGraph(int dimension, int m, int efConstruction, int initialCapacity, VectorStorage storage) {
+        this.dimension = dimension;
+        this.storage = storage;
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+        int capacity = Math.max(16, initialCapacity);
+        this.nodes = new Node[capacity];
+    }
+
+    // false si le graphe est déjà retiré et son stockage fermé
+    boolean retain() {
+        while (true) {
+            int count = references.get();
+            if (count == 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            storage.close();
+        }
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int m() {
+        return m;
+    }
+
+    int efConstruction() {
+        return efConstruction;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int liveCount() {
+        return size - deletedCount.get();
+    }
+
+    int deletedCount() {
+        return deletedCount.get();
+    }
+
+    Node node(int index) {
+        return nodes[index];
+    }
+
+    VectorStorage storage() {
+        return storage;
+    }
+
+    // vecteur normalisé d'un nœud, en pleine précision
+    float[] vector(int index) {
+        return storage.vector(index);
+    }
+
+    synchronized Integer nodeOf(String id) {
+        return idToNode.get(id);
+    }
+
+    // --- écriture (un seul thread à la fois) ---
+
+    void insert(String id, float[] vector, TextSegment segment) {
+        synchronized (this) {
+            Integer previous = idToNode.get(id);
+            if (previous != null) {
+                markDeleted(previous);
+            }
+        }
+
+        int node = size;
+        ensureCapacity(node + 1);
+        storage.set(node, vector);
+
+        int level = randomLevel();
+        Node created = new Node(id, segment, level);
+        nodes[node] = created;
+
+        EntryPoint entry = entryPoint;
+        if (entry != null) {
+            int current = entry.node();
+            for (int l = entry.level(); l > level; l--) {
+                current = greedyClosest(vector, current, l, node);
+            }
+
+            List<Candidate> entryPoints = List.of(new Candidate(current, score(vector, current)));
+            for (int l = Math.min(level, entry.level()); l >= 0; l--) {
+                List<Candidate> candidates = searchLayer(vector, entryPoints, efConstruction, l, node);
+                int[] selected = selectNeighbors(candidates, maxNeighbors(l));
+                created.neighbors.set(l, selected);
+                for (int neighbor : selected) {
+                    connect(neighbor, node, l);
+                }
+                entryPoints = candidates;
+            }
+        }
+
+        synchronized (this) {
+            idToNode.put(id, node);
+        }
+        size = node + 1;
+        if (entry == null || level > entry.level()) {
+            entryPoint = new EntryPoint(node, level);
+        }
+    }
+
+    // nœud conservé pour la navigation, exclu des résultats
+    synchronized boolean remove(String id) {
+        Integer node = idToNode.remove(id);
+        if (node == null) {
+            return false;
+        }
+        markDeleted(node);
+        return true;
+    }
+
+    private void markDeleted(int node) {
+        if (!nodes[node].deleted) {
+            nodes[node].deleted = true;
+            deletedCount.incrementAndGet();
+        }
+    }
+
+    // rechargement d'un snapshot : le nœud arrive avec ses voisins déjà calculés
+    void restore(String id, float[] vector, TextSegment segment, int[][] neighbors, boolean deleted) {
+        int node = size;
+        ensureCapacity(node + 1);
+        storage.set(node, vector);
+
+        Node restored = new Node(id, segment, neighbors.length - 1);
+        for (int l = 0; l < neighbors.length; l++) {
+            restored.neighbors.set(l, neighbors[l]);
+        }
+        restored.deleted = deleted;
+        nodes[node] = restored;
+
+        synchronized (this) {
+            if (deleted) {
+                deletedCount.incrementAndGet();
+            } else {
+                idToNode.put(id, node);
+            }
+        }
+        size = node + 1;
+    }
+
+    void restoreEntryPoint(int node) {
+        if (node >= 0 && node < size) {
+            entryPoint = new EntryPoint(node, nodes[node].level);
+        }
+    }
+
+    int entryPointNode() {
+        EntryPoint entry = entryPoint;
+        return entry == null ? -1 : entry.node();
+    }
+
+    private void ensureCapacity(int required) {
+        Node[] currentNodes = nodes;
+        if (required <= currentNodes.length) {
+            return;
+        }
+        int capacity = Math.max(required, currentNodes.length * 2);
+        nodes = Arrays.copyOf(currentNodes, capacity);
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private int maxNeighbors(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    // ajoute "node" aux voisins de "neighbor", en élaguant si la liste est pleine
+    private void connect(int neighbor, int node, int level) {
+        Node target = nodes[neighbor];
+        int[] current = target.neighbors.get(level);
+        int max = maxNeighbors(level);
+
+        if (current.length < max) {
+            int[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = node;
+            target.neighbors.set(level, updated);
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(current.length + 1);
+        for (int existing : current) {
+            candidates.add(new Candidate(existing, storage.similarity(neighbor, existing)));
+        }
+        candidates.add(new Candidate(node, storage.similarity(neighbor, node)));
+        candidates.sort((a, b) -> Float.compare(b.score(), a.score()));
+        target.neighbors.set(level, selectNeighbors(candidates, max));
+    }
+
+    // heuristique HNSW : un candidat n'est gardé que s'il est plus proche de la cible que des voisins déjà retenus
+    private int[] selectNeighbors(List<Candidate> candidates, int max) {
+        List<Candidate> sorted = new ArrayList<>(candidates);
+        sorted.sort((a, b) -> Float.compare(b.score(), a.score()));
+
+        int[] selected = new int[Math.min(max, sorted.size())];
+        int count = 0;
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate candidate : sorted) {
+            if (count == selected.length) {
+                break;
+            }
+            boolean diverse = true;
+            for (int i = 0; i < count && diverse; i++) {
+                if (similarity(candidate.node(), selected[i]) > candidate.score()) {
+                    diverse = false;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidate.node();
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        // complète avec les meilleurs candidats écartés pour garder le graphe connexe
+        for (int i = 0; count < selected.length && i < pruned.size(); i++) {
+            selected[count++] = pruned.get(i).node();
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    // --- lecture (concurrente) ---
+
+    // les ef meilleurs nœuds (supprimés compris) par score décroissant
+    List<Candidate> search(float[] query, int ef) {
+        // ordre inverse de la publication (size puis entryPoint) : un point d'entrée visible
+        // garantit un size qui le couvre
+        EntryPoint entry = entryPoint;
+        int limit = size;
+        if (entry == null || limit == 0) {
+            return List.of();
+        }
+
+        int current = entry.node();
+        for (int l = entry.level(); l > 0; l--) {
+            current = greedyClosest(query, current, l, limit);
+        }
+        return searchLayer(query, List.of(new Candidate(current, score(query, current))), ef, 0, limit);
+    }
+
+    private int greedyClosest(float[] query, int start, int level, int limit) {
+        int current = start;
+        float best = score(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : neighborsOf(current, level)) {
+                if (neighbor >= limit) {
+                    continue;
+                }
+                float s = score(query, neighbor);
+                if (s > best) {
+                    best = s;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<Candidate> searchLayer(float[] query, List<Candidate> entryPoints, int ef, int level, int limit) {
+        BitSet visited = new BitSet(limit);
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>((a, b) -> Float.compare(b.score(), a.score()));
+        PriorityQueue<Candidate> results = new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score()));
+
+        for (Candidate candidate : entryPoints) {
+            if (candidate.node() < limit && !visited.get(candidate.node())) {
+                visited.set(candidate.node());
+                toVisit.add(candidate);
+                results.add(candidate);
+            }
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+
+        while (!toVisit.isEmpty()) {
+            Candidate closest = toVisit.poll();
+            if (results.size() >= ef && closest.score() < results.peek().score()) {
+                break;
+            }
+            for (int neighbor : neighborsOf(closest.node(), level)) {
+                if (neighbor >= limit || visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float s = score(query, neighbor);
+                if (results.size() < ef || s > results.peek().score()) {
+                    Candidate candidate = new Candidate(neighbor, s);
+                    toVisit.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return sorted;
+    }
+
+    int[] neighborsOf(int node, int level) {
+        Node n = nodes[node];
+        return level <= n.level ? n.neighbors.get(level) : new int[0];
+    }
+
+    float score(float[] query, int node) {
+        return storage.score(query, node);
+    }
+
+    private float similarity(int a, int b) {
+        return storage.similarity(a, b);
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,35 @@
+package org.mql.ai.store;
+
+import java.nio.file.Path;
+
+/**
+ * Paramètres de l'index HNSW.
+ * quantized : codes int8 en mémoire, vecteurs exacts sur disque (vectorsDirectory) pour le réordonnancement
+ * des rerankFactor x maxResults meilleurs candidats.
+ * recallSampleRate : fraction des recherches comparées en arrière-plan à une recherche exacte.
+ */
+public record HnswOptions(
+        Path snapshotFile,
+        int m,
+        int efConstruction,
+        int efSearch,
+        long snapshotIntervalSeconds,
+        boolean quantized,
+        Path vectorsDirectory,
+        int rerankFactor,
+        double recallSampleRate) {
+
+    public static HnswOptions defaults(Path snapshotFile) {
+        return new HnswOptions(snapshotFile, 16, 200, 64, 0, false, null, 4, 0.0);
+    }
+
+    public HnswOptions withQuantization(Path vectorsDirectory, int rerankFactor) {
+        return new HnswOptions(snapshotFile, m, efConstruction, efSearch, snapshotIntervalSeconds,
+            true, vectorsDirectory, rerankFactor, recallSampleRate);
+    }
+
+    public HnswOptions withRecallSampleRate(double rate) {
+        return new HnswOptions(snapshotFile, m, efConstruction, efSearch, snapshotIntervalSeconds,
+            quantized, vectorsDirectory, rerankFactor, rate);
+    }
+}
@@ -0,0 +1,137 @@
+package org.mql.ai.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Quantification scalaire int8 : chaque composante est codée sur un octet avec une échelle par vecteur
+ * (scale = max |v_i| / 127), soit ~4x moins de mémoire que des floats.
+ * La recherche dans le graphe se fait sur les codes ; les vecteurs exacts sont écrits dans un fichier
+ * temporaire et relus uniquement pour réordonner les meilleurs candidats.
+ */
+final class QuantizedVectorStorage implements VectorStorage {
+
+    private final int dimension;
+    private final FileChannel exactVectors;
+    private volatile byte[] codes;
+    private volatile float[] scales;
+
+    QuantizedVectorStorage(int dimension, int initialCapacity, Path directory) {
+        this.dimension = dimension;
+        int capacity = Math.max(16, initialCapacity);
+        this.codes = new byte[capacity * dimension];
+        this.scales = new float[capacity];
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "hnsw-vectors", ".bin");
+            this.exactVectors = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de créer le fichier des vecteurs exacts dans " + directory, e);
+        }
+    }
+
+    @Override
+    public void set(int node, float[] vector) {
+        byte[] currentCodes = codes;
+        float[] currentScales = scales;
+        if (node >= currentScales.length) {
+            int capacity = Math.max(node + 1, currentScales.length * 2);
+            currentCodes = Arrays.copyOf(currentCodes, capacity * dimension);
+            currentScales = Arrays.copyOf(currentScales, capacity);
+            codes = currentCodes;
+            scales = currentScales;
+        }
+
+        float max = 0f;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        float scale = max == 0f ? 1f : max / 127f;
+        int offset = node * dimension;
+        for (int i = 0; i < dimension; i++) {
+            currentCodes[offset + i] = (byte) Math.round(vector[i] / scale);
+        }
+        currentScales[node] = scale;
+
+        ByteBuffer buffer = ByteBuffer.allocate(dimension * Float.BYTES);
+        buffer.asFloatBuffer().put(vector);
+        try {
+            long position = (long) node * dimension * Float.BYTES;
+            while (buffer.hasRemaining()) {
+                exactVectors.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du vecteur exact impossible", e);
+        }
+    }
+
+    // distance asymétrique : requête en float, nœud en int8
+    @Override
+    public float score(float[] query, int node) {
+        byte[] currentCodes = codes;
+        int offset = node * dimension;
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * currentCodes[offset + i];
+        }
+        return sum * scales[node];
+    }
+
+    @Override
+    public float similarity(int a, int b) {
+        byte[] currentCodes = codes;
+        int offsetA = a * dimension;
+        int offsetB = b * dimension;
+        int sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += currentCodes[offsetA + i] * currentCodes[offsetB + i];
+        }
+        float[] currentScales = scales;
+        return sum * currentScales[a] * currentScales[b];
+    }
+
+    @Override
+    public float[] vector(int node) {
+        ByteBuffer buffer = ByteBuffer.allocate(dimension * Float.BYTES);
+        try {
+            long position = (long) node * dimension * Float.BYTES;
+            while (buffer.hasRemaining()) {
+                if (exactVectors.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Fin de fichier au nœud " + node);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du vecteur exact impossible", e);
+        }
+        buffer.flip();
+        float[] vector = new float[dimension];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    @Override
+    public long memoryBytes() {
+        return codes.length + (long) scales.length * Float.BYTES;
+    }
+
+    @Override
+    public void close() {
+        try {
+            exactVectors.close();
+        } catch (IOException e) {
+            // fichier temporaire supprimé à la fermeture, rien à conserver
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.mql.ai.store;
+
+/**
+ * Stockage des vecteurs normalisés du graphe HNSW, indexés par numéro de nœud.
+ * Un seul écrivain ; un nœud n'est lu qu'après publication par le graphe.
+ */
+interface VectorStorage extends AutoCloseable {
+
+    void set(int node, float[] vector);
+
+    // score approché (exact pour le stockage float) entre une requête et un nœud
+    float score(float[] query, int node);
+
+    float similarity(int a, int b);
+
+    // vecteur en pleine précision
+    float[] vector(int node);
+
+    // false si score() travaille sur des codes compressés et doit être réordonné
+    boolean isExact();
+
+    long memoryBytes();
+
+    @Override
+    void close();
+}
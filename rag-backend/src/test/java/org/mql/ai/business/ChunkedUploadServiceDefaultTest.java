@@ -0,0 +1,134 @@
+package org.mql.ai.business;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mql.ai.exceptions.UploadRejectedException;
+import org.mql.ai.exceptions.UploadRejectedException.Reason;
+import org.mql.ai.models.IngestionJob;
+import org.mql.ai.models.UploadSession;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkedUploadServiceDefaultTest {
+
+	@TempDir
+	Path directory;
+
+	// configuré comme l'ObjectMapper de Spring Boot (propriétés inconnues ignorées)
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+		.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	private final Map<String, byte[]> submitted = new ConcurrentHashMap<>();
+	private final List<ChunkedUploadServiceDefault> services = new ArrayList<>();
+
+	@AfterEach
+	void shutdown() {
+		services.forEach(ChunkedUploadServiceDefault::shutdown);
+	}
+
+	@Test
+	void chunksMustStartAtTheReceivedOffset() {
+		ChunkedUploadServiceDefault uploads = service();
+		UploadSession session = uploads.start("cours.pdf", 6);
+
+		uploads.appendChunk(session.getId(), 0, bytes(1, 2, 3));
+		assertThrows(IllegalStateException.class, () -> uploads.appendChunk(session.getId(), 0, bytes(4, 5, 6)));
+		assertThrows(IllegalStateException.class, () -> uploads.appendChunk(session.getId(), 5, bytes(6)));
+
+		assertEquals(3, uploads.appendChunk(session.getId(), 3, bytes()).getReceivedBytes());
+	}
+
+	@Test
+	void overflowingChunkIsRejectedAndTruncated() throws Exception {
+		ChunkedUploadServiceDefault uploads = service();
+		UploadSession session = uploads.start("cours.pdf", 4);
+		uploads.appendChunk(session.getId(), 0, bytes(1, 2));
+
+		UploadRejectedException rejected = assertThrows(UploadRejectedException.class,
+			() -> uploads.appendChunk(session.getId(), 2, bytes(3, 4, 5)));
+
+		assertEquals(Reason.TOO_LARGE, rejected.getReason());
+		assertEquals(2, uploads.getSession(session.getId()).orElseThrow().getReceivedBytes());
+		assertEquals(2, Files.size(directory.resolve(session.getId() + ".part")));
+	}
+
+	@Test
+	void sessionIsResumedAfterReloadThenCompleted() {
+		ChunkedUploadServiceDefault uploads = service();
+		UploadSession session = uploads.start("cours.pdf", 5);
+		uploads.appendChunk(session.getId(), 0, bytes(1, 2));
+		uploads.shutdown();
+
+		// redémarrage : la session et les octets déjà reçus sont relus depuis le disque
+		ChunkedUploadServiceDefault reloaded = service();
+		assertEquals(2, reloaded.getSession(session.getId()).orElseThrow().getReceivedBytes());
+		assertThrows(IllegalStateException.class, () -> reloaded.complete(session.getId()));
+
+		reloaded.appendChunk(session.getId(), 2, bytes(3, 4, 5));
+		IngestionJob job = reloaded.complete(session.getId());
+
+		assertEquals("cours.pdf", job.getFileName());
+		assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, submitted.get("cours.pdf"));
+		assertFalse(reloaded.getSession(session.getId()).isPresent());
+		assertFalse(Files.exists(directory.resolve(session.getId() + ".part")));
+	}
+
+	@Test
+	void conflictingNamesAreRejectedBeforeAnyContentIsSent() {
+		ChunkedUploadServiceDefault uploads = service();
+		uploads.start("cours.pdf", 10);
+
+		UploadRejectedException indexed = assertThrows(UploadRejectedException.class,
+			() -> uploads.start("deja-indexe.pdf", 10));
+		UploadRejectedException pending = assertThrows(UploadRejectedException.class,
+			() -> uploads.start("cours.pdf", 10));
+
+		assertEquals(409, indexed.getStatus());
+		assertEquals(Reason.CONFLICT, pending.getReason());
+	}
+
+	private ChunkedUploadServiceDefault service() {
+		IngestionJobService jobs = (IngestionJobService) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {IngestionJobService.class}, (proxy, method, args) -> {
+				if (method.getName().equals("submitUpload") && args[0] instanceof Path part) {
+					submitted.put((String) args[1], Files.readAllBytes(part));
+					return new IngestionJob("job-" + args[1], (String) args[1]);
+				}
+				throw new UnsupportedOperationException(method.getName());
+			});
+		PDFLoaderService loader = (PDFLoaderService) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {PDFLoaderService.class}, (proxy, method, args) -> {
+				if (method.getName().equals("requireUploadable") && "deja-indexe.pdf".equals(args[0])) {
+					throw new UploadRejectedException(Reason.CONFLICT, "déjà indexé");
+				}
+				return null;
+			});
+		ChunkedUploadServiceDefault service = new ChunkedUploadServiceDefault(jobs, loader, objectMapper,
+			directory.toString(), 1, 24);
+		services.add(service);
+		return service;
+	}
+
+	private static ByteArrayInputStream bytes(int... values) {
+		byte[] content = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			content[i] = (byte) values[i];
+		}
+		return new ByteArrayInputStream(content);
+	}
+}
@@ -0,0 +1,54 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextAssemblerTest {
+
+	@Test
+	void adjacentChunksAreMergedWithoutOverlap() {
+		ContextAssembler assembler = new ContextAssembler(0, 4, 50);
+
+		ContextAssembler.Context context = assembler.assemble(List.of(
+			match("cours.pdf", 4, 0.8, "Le cloud public mutualise les ressources. Le modèle IaaS fournit des machines."),
+			match("cours.pdf", 3, 0.9, "Introduction au cloud computing. Le cloud public mutualise les ressources.")));
+
+		assertEquals("Introduction au cloud computing. Le cloud public mutualise les ressources."
+			+ " Le modèle IaaS fournit des machines.", context.text());
+		assertEquals(1, context.passages());
+		assertEquals(2, context.chunks());
+		assertTrue(context.tokensSaved() > 0);
+	}
+
+	@Test
+	void passagesArePackedByScoreWithinTheBudget() {
+		ContextAssembler assembler = new ContextAssembler(30, 4, 50);
+		String best = "a".repeat(80);
+		String large = "b".repeat(200);
+		String small = "c".repeat(20);
+
+		ContextAssembler.Context context = assembler.assemble(List.of(
+			match("x.pdf", 0, 0.9, best),
+			match("y.pdf", 0, 0.8, large),
+			match("z.pdf", 0, 0.7, small)));
+
+		assertEquals(best + ContextAssembler.SEPARATOR + small, context.text());
+		assertFalse(context.text().contains("b"));
+		assertTrue(context.tokens() <= 30);
+	}
+
+	private static EmbeddingMatch<TextSegment> match(String fileName, int chunkIndex, double score, String text) {
+		Metadata metadata = new Metadata();
+		metadata.put("file_name", fileName);
+		metadata.put("chunk_index", String.valueOf(chunkIndex));
+		return new EmbeddingMatch<>(score, fileName + "-" + chunkIndex, null, TextSegment.from(text, metadata));
+	}
+}
@@ -0,0 +1,67 @@
+package org.mql.ai.business;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoursesDirectoryWatcherTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void changesOnBusyFilesAreRetriedUntilApplied() throws Exception {
+		Path pdf = directory.resolve("cours.pdf");
+		Files.write(pdf, new byte[] {1, 2, 3});
+
+		// premier essai de chaque opération refusé : fichier en cours d'indexation
+		List<String> calls = new CopyOnWriteArrayList<>();
+		AtomicInteger refreshes = new AtomicInteger();
+		AtomicInteger removals = new AtomicInteger();
+		PDFLoaderService loader = (PDFLoaderService) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {PDFLoaderService.class}, (proxy, method, args) -> {
+				switch (method.getName()) {
+					case "refreshPDF":
+						calls.add("refresh " + ((Path) args[0]).getFileName());
+						return refreshes.incrementAndGet() > 1;
+					case "removePDF":
+						calls.add("remove " + args[0]);
+						return removals.incrementAndGet() > 1;
+					default:
+						return null;
+				}
+			});
+		CoursesDirectoryWatcher watcher = new CoursesDirectoryWatcher(loader, directory.toString(), true, 100);
+		watcher.start();
+
+		try {
+			Files.write(pdf, new byte[] {1, 2, 3, 4});
+			awaitCount(refreshes, 2);
+
+			Files.delete(pdf);
+			awaitCount(removals, 2);
+
+			Thread.sleep(500);
+			assertEquals(List.of("refresh cours.pdf", "refresh cours.pdf", "remove cours.pdf", "remove cours.pdf"), calls);
+		} finally {
+			watcher.stop();
+		}
+	}
+
+	private static void awaitCount(AtomicInteger counter, int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (counter.get() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertTrue(counter.get() >= expected, "appels: " + counter.get());
+	}
+}
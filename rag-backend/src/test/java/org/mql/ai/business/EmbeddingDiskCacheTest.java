@@ -0,0 +1,88 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.embedding.Embedding;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingDiskCacheTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void vectorsSurviveReopening() {
+		String file = tempDir.resolve("cache.bin").toString();
+
+		EmbeddingDiskCache cache = new EmbeddingDiskCache(true, file, "nomic-embed-text", 0.3);
+		cache.put("IaaS: Infrastructure as a Service", Embedding.from(new float[] {0.1f, 0.2f, 0.3f}));
+		cache.put("SaaS: Software as a Service", Embedding.from(new float[] {0.4f, 0.5f, 0.6f}));
+		assertArrayEquals(new float[] {0.4f, 0.5f, 0.6f}, cache.get("SaaS: Software as a Service").vector());
+		cache.close();
+
+		EmbeddingDiskCache reopened = new EmbeddingDiskCache(true, file, "nomic-embed-text", 0.3);
+		assertEquals(2, reopened.getStats().get("entries"));
+		assertArrayEquals(new float[] {0.1f, 0.2f, 0.3f}, reopened.get("IaaS: Infrastructure as a Service").vector());
+		reopened.close();
+
+		// même texte, autre modèle : pas de collision
+		EmbeddingDiskCache otherModel = new EmbeddingDiskCache(true, file, "all-minilm", 0.3);
+		assertNull(otherModel.get("IaaS: Infrastructure as a Service"));
+		otherModel.close();
+	}
+
+	@Test
+	void vectorsAppendedAfterTheFirstReadAreReadWithoutRemapping() {
+		EmbeddingDiskCache cache = new EmbeddingDiskCache(true, tempDir.resolve("cache.bin").toString(), "nomic-embed-text", 0.3);
+		cache.put("chunk 0", Embedding.from(new float[] {0f, 0f}));
+		assertArrayEquals(new float[] {0f, 0f}, cache.get("chunk 0").vector());
+
+		for (int i = 1; i < 50; i++) {
+			cache.put("chunk " + i, Embedding.from(new float[] {i, -i}));
+			assertArrayEquals(new float[] {i, -i}, cache.get("chunk " + i).vector());
+		}
+		assertArrayEquals(new float[] {0f, 0f}, cache.get("chunk 0").vector());
+		cache.close();
+	}
+
+	@Test
+	void deadVectorsAreCompactedAwayFromLiveKeys() throws Exception {
+		Path file = tempDir.resolve("cache.bin");
+		EmbeddingDiskCache cache = new EmbeddingDiskCache(true, file.toString(), "nomic-embed-text", 0.3);
+		for (int i = 0; i < 10; i++) {
+			cache.put("chunk " + i, Embedding.from(new float[] {i, i, i}));
+		}
+		long sizeBefore = Files.size(file);
+
+		// 2 vecteurs périmés sur 10 : sous le seuil, rien n'est réécrit
+		cache.retainOnly(List.of(cache.keyOf("chunk 0"), cache.keyOf("chunk 1"), cache.keyOf("chunk 2"),
+			cache.keyOf("chunk 3"), cache.keyOf("chunk 4"), cache.keyOf("chunk 5"), cache.keyOf("chunk 6"),
+			cache.keyOf("chunk 7")));
+		assertEquals(0L, cache.getStats().get("compactions"));
+
+		cache.retainOnly(List.of(cache.keyOf("chunk 3"), cache.keyOf("chunk 7")));
+		assertEquals(1L, cache.getStats().get("compactions"));
+		assertEquals(2, cache.getStats().get("entries"));
+		assertTrue(Files.size(file) < sizeBefore);
+		assertNull(cache.get("chunk 0"));
+		assertArrayEquals(new float[] {7f, 7f, 7f}, cache.get("chunk 7").vector());
+
+		// les ajouts suivants vont bien dans le nouveau fichier
+		cache.put("chunk 10", Embedding.from(new float[] {10f, 10f, 10f}));
+		cache.close();
+
+		EmbeddingDiskCache reopened = new EmbeddingDiskCache(true, file.toString(), "nomic-embed-text", 0.3);
+		assertEquals(3, reopened.getStats().get("entries"));
+		assertArrayEquals(new float[] {3f, 3f, 3f}, reopened.get("chunk 3").vector());
+		assertArrayEquals(new float[] {10f, 10f, 10f}, reopened.get("chunk 10").vector());
+		reopened.close();
+	}
+}
@@ -0,0 +1,90 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingServiceDefaultTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void batchSizeGrowsByAConstantStepAndHalvesOnError() {
+		EmbeddingServiceDefault.AdaptiveBatchSizer sizer = new EmbeddingServiceDefault.AdaptiveBatchSizer(16, 1, 128, 1000);
+
+		sizer.onSuccess(16, 100);
+		assertEquals(20, sizer.current());
+		sizer.onSuccess(20, 100);
+		assertEquals(24, sizer.current());
+		// lot partiel : aucune information sur la capacité
+		sizer.onSuccess(5, 100);
+		assertEquals(24, sizer.current());
+
+		sizer.onError();
+		assertEquals(12, sizer.current());
+		sizer.onSuccess(12, 5000);
+		assertEquals(6, sizer.current());
+	}
+
+	@Test
+	void concurrentBatchesKeepSegmentOrderWhenAFailedBatchIsSplit() {
+		AtomicBoolean failed = new AtomicBoolean();
+		EmbeddingModel model = new EmbeddingModel() {
+			@Override
+			public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+				// délais aléatoires : les lots se terminent dans le désordre
+				sleep(ThreadLocalRandom.current().nextInt(10));
+				if (segments.size() > 1 && failed.compareAndSet(false, true)) {
+					throw new IllegalStateException("Ollama indisponible");
+				}
+				List<Embedding> embeddings = new ArrayList<>();
+				for (TextSegment segment : segments) {
+					embeddings.add(Embedding.from(new float[] {Integer.parseInt(segment.text())}));
+				}
+				return Response.from(embeddings);
+			}
+		};
+		EmbeddingServiceDefault service = new EmbeddingServiceDefault(model, null,
+			new EmbeddingDiskCache(false, directory.resolve("cache.bin").toString(), "test", 0.3),
+			new RagMetrics(new SimpleMeterRegistry()), 4, 8, 8, 1, 64, 10_000, 2);
+
+		try {
+			List<TextSegment> segments = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				segments.add(TextSegment.from(String.valueOf(i)));
+			}
+
+			List<Embedding> embeddings = service.embedSegments(segments);
+
+			assertTrue(failed.get());
+			assertEquals(200, embeddings.size());
+			for (int i = 0; i < embeddings.size(); i++) {
+				assertEquals(i, embeddings.get(i).vector()[0]);
+			}
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
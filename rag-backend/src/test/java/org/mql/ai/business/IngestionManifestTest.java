@@ -0,0 +1,83 @@
+package org.mql.ai.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionManifestTest {
+
+	@TempDir
+	Path directory;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+	@Test
+	void journalReplayKeepsIdsAndSurvivesTornLastLine() throws IOException {
+		LocalDateTime indexDate = LocalDateTime.of(2024, 3, 1, 10, 30);
+		IngestionManifest manifest = manifest();
+		manifest.put(entry("cloud.pdf", "id-cloud", indexDate));
+		manifest.put(entry("java.pdf", "id-java", indexDate));
+		manifest.remove("java.pdf");
+		manifest.close();
+		Files.writeString(journal(), "{\"op\":\"put\",\"fileName\":\"tronq", StandardOpenOption.APPEND);
+
+		IngestionManifest reloaded = manifest();
+
+		assertEquals(1, reloaded.size());
+		assertFalse(reloaded.contains("java.pdf"));
+		IngestionManifest.Entry cloud = reloaded.get("cloud.pdf").orElseThrow();
+		assertEquals("id-cloud", cloud.getDocumentId());
+		assertEquals(indexDate, cloud.getIndexDate());
+		assertEquals(List.of("cloud.pdf#0", "cloud.pdf#1"), cloud.getChunkIds());
+		assertEquals(1, Files.readAllLines(journal()).size());
+	}
+
+	@Test
+	void legacyManifestIsImportedThenJournalIsCompacted() throws IOException {
+		objectMapper.writeValue(directory.resolve("manifest.json").toFile(),
+			List.of(entry("reseaux.pdf", "id-reseaux", LocalDateTime.now())));
+
+		IngestionManifest manifest = manifest();
+		assertEquals("id-reseaux", manifest.get("reseaux.pdf").orElseThrow().getDocumentId());
+
+		for (int i = 0; i < 100; i++) {
+			manifest.put(entry("cloud.pdf", "id-cloud", LocalDateTime.now()));
+		}
+		manifest.close();
+
+		assertTrue(Files.readAllLines(journal()).size() <= 64);
+		assertEquals(2, manifest().getAll().size());
+	}
+
+	private IngestionManifest manifest() {
+		return new IngestionManifest(journal().toString(), directory.resolve("manifest.json").toString(), 2.0, objectMapper);
+	}
+
+	private Path journal() {
+		return directory.resolve("manifest.log");
+	}
+
+	private static IngestionManifest.Entry entry(String fileName, String documentId, LocalDateTime indexDate) {
+		IngestionManifest.Entry entry = new IngestionManifest.Entry();
+		entry.setFileName(fileName);
+		entry.setDocumentId(documentId);
+		entry.setContentHash("sha256-" + fileName);
+		entry.setChunkCount(2);
+		entry.setChunkIds(List.of(fileName + "#0", fileName + "#1"));
+		entry.setEmbeddingModel("test");
+		entry.setIndexDate(indexDate);
+		return entry;
+	}
+}
@@ -0,0 +1,65 @@
+package org.mql.ai.business;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class IngestionPipelineTest {
+
+	@Test
+	void everyEmittedItemReachesTheLastStage() {
+		ConcurrentLinkedQueue<String> stored = new ConcurrentLinkedQueue<>();
+		List<Integer> inputs = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+
+		IngestionPipeline pipeline = new IngestionPipeline("test", 2)
+			.<Integer, String>stage("split", 3, (n, emit) -> {
+				for (int i = 0; i < 3; i++) {
+					emit.accept(n + "-" + i);
+				}
+			})
+			.<String, String>stage("upper", 2, (s, emit) -> {
+				if (s.equals("7-1")) {
+					throw new IllegalStateException("échec simulé");
+				}
+				emit.accept(s.toUpperCase());
+			})
+			.<String, Void>stage("store", 4, (s, emit) -> stored.add(s));
+
+		pipeline.run(inputs);
+
+		assertEquals(149, stored.size());
+		Map<String, Map<String, Object>> stats = pipeline.getStats();
+		assertEquals(150L, stats.get("upper").get("itemsIn"));
+		assertEquals(1L, stats.get("upper").get("errors"));
+		assertEquals(149L, stats.get("store").get("itemsIn"));
+	}
+
+	@Test
+	void fatalErrorInAStageEndsTheRunInsteadOfHanging() {
+		List<Integer> inputs = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+
+		IngestionPipeline pipeline = new IngestionPipeline("fatal", 2)
+			.<Integer, Integer>stage("parse", 1, (n, emit) -> {
+				if (n == 3) {
+					throw new OutOfMemoryError("simulée");
+				}
+				emit.accept(n);
+			})
+			.<Integer, Void>stage("store", 2, (n, emit) -> { });
+
+		OutOfMemoryError error = assertTimeoutPreemptively(Duration.ofSeconds(10),
+			() -> assertThrows(OutOfMemoryError.class, () -> pipeline.run(inputs)));
+
+		assertEquals("simulée", error.getMessage());
+		assertEquals(1L, pipeline.getStats().get("parse").get("errors"));
+	}
+}
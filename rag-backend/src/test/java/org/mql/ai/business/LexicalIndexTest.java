@@ -0,0 +1,64 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LexicalIndexTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void exactTermsRankFirstAndSurviveReopening() {
+		String file = tempDir.resolve("lexical.bin").toString();
+
+		LexicalIndex index = new LexicalIndex(true, file, 1.2, 0.75, 0);
+		index.add(List.of("c1", "c2", "c3"), List.of(
+			segment("Le cloud computing propose plusieurs modèles de service.", "cloud.pdf"),
+			segment("Le SLA définit la disponibilité garantie par le fournisseur SaaS.", "cloud.pdf"),
+			segment("Kubernetes orchestre des conteneurs sur un cluster.", "devops.pdf")));
+
+		assertEquals("c2", index.search("Que garantit un SLA ?", 3).get(0).chunkId());
+		assertEquals("c3", index.search("kubernetes", 3).get(0).chunkId());
+		// accents et casse ignorés
+		assertEquals("c2", index.search("DEFINIT disponibilite", 3).get(0).chunkId());
+
+		index.removeFile("devops.pdf");
+		assertTrue(index.search("kubernetes", 3).isEmpty());
+		index.close();
+
+		LexicalIndex reopened = new LexicalIndex(true, file, 1.2, 0.75, 0);
+		assertTrue(reopened.containsAll(List.of("c1", "c2")));
+		assertEquals("cloud.pdf", reopened.search("SaaS", 1).get(0).segment().metadata().getString("file_name"));
+		reopened.close();
+	}
+
+	@Test
+	void reindexedChunksDoNotTurnIdfNegative() {
+		LexicalIndex index = new LexicalIndex(true, tempDir.resolve("lexical.bin").toString(), 1.2, 0.75, 0);
+		index.add(List.of("c1", "c2"), List.of(
+			segment("Virtualisation et hyperviseur de type 1.", "cloud.pdf"),
+			segment("Le stockage objet du fournisseur.", "cloud.pdf")));
+		// même cours réindexé : sous le seuil de compactage, les anciens postings restent
+		for (int i = 0; i < 20; i++) {
+			index.add(List.of("c1"), List.of(segment("Virtualisation et hyperviseur de type 1.", "cloud.pdf")));
+		}
+
+		List<LexicalIndex.Hit> hits = index.search("hyperviseur", 2);
+		assertEquals(1, hits.size());
+		assertTrue(hits.get(0).score() > 0, "score: " + hits.get(0).score());
+		index.close();
+	}
+
+	private TextSegment segment(String text, String fileName) {
+		return TextSegment.from(text, Metadata.from("file_name", fileName));
+	}
+}
@@ -0,0 +1,56 @@
+package org.mql.ai.business;
+
+import org.junit.jupiter.api.Test;
+import org.mql.ai.exceptions.LlmOverloadedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LlmConcurrencyLimiterTest {
+
+	@Test
+	void waitingRequestGetsThePermitReleasedByAnother() throws Exception {
+		LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(1, 1, 5, 10);
+		limiter.acquire();
+
+		CompletableFuture<Void> waiter = CompletableFuture.runAsync(limiter::acquire);
+		awaitWaiting(limiter, 1);
+		limiter.release();
+
+		waiter.get(5, TimeUnit.SECONDS);
+		assertEquals(2L, limiter.getStats().get("accepted"));
+		assertEquals(1L, limiter.getStats().get("queued"));
+	}
+
+	@Test
+	void fullQueueIsRejectedImmediatelyAndStaleWaitAfterTimeout() throws Exception {
+		LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(1, 1, 1, 7);
+		limiter.acquire();
+		assertDoesNotThrow(limiter::checkAdmission);
+
+		CompletableFuture<Void> waiter = CompletableFuture.runAsync(limiter::acquire);
+		awaitWaiting(limiter, 1);
+
+		LlmOverloadedException full = assertThrows(LlmOverloadedException.class, limiter::acquire);
+		assertThrows(LlmOverloadedException.class, limiter::checkAdmission);
+		assertEquals(7, full.getRetryAfterSeconds());
+
+		// personne ne libère la place : l'attente expire après queue-timeout
+		Exception timedOut = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+		assertEquals(LlmOverloadedException.class, timedOut.getCause().getClass());
+		assertEquals(3L, limiter.getStats().get("rejected"));
+	}
+
+	private static void awaitWaiting(LlmConcurrencyLimiter limiter, int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!Integer.valueOf(expected).equals(limiter.getStats().get("waiting"))
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, limiter.getStats().get("waiting"));
+	}
+}
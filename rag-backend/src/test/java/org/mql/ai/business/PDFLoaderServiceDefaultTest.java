@@ -0,0 +1,77 @@
+package org.mql.ai.business;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mql.ai.exceptions.UploadRejectedException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PDFLoaderServiceDefaultTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void parallelExtractionKeepsPageOrder() throws IOException {
+		Path pdf = writePdf(directory.resolve("gros-cours.pdf"), 23);
+
+		List<Integer> windowSizes = new ArrayList<>();
+		List<PageAwareSplitter.Page> sequential = new ArrayList<>();
+		loader(1000, 1).readPages(pdf, sequential::addAll);
+		List<PageAwareSplitter.Page> parallel = new ArrayList<>();
+		boolean hasText = loader(1, 4).readPages(pdf, pages -> {
+			windowSizes.add(pages.size());
+			parallel.addAll(pages);
+		});
+
+		assertTrue(hasText);
+		assertEquals(List.of(5, 5, 5, 5, 3), windowSizes);
+		assertEquals(sequential, parallel);
+		for (int i = 0; i < parallel.size(); i++) {
+			assertEquals(i + 1, parallel.get(i).number());
+			assertTrue(parallel.get(i).text().contains("Page " + (i + 1) + " du cours"));
+		}
+	}
+
+	@Test
+	void uploadNamesCannotLeaveTheCoursesDirectory() {
+		PDFLoaderServiceDefault.requirePlainFileName("cours-cloud.pdf");
+		for (String name : List.of("../x.pdf", "sous/x.pdf", "/tmp/x.pdf", ".x.pdf")) {
+			assertThrows(UploadRejectedException.class, () -> PDFLoaderServiceDefault.requirePlainFileName(name), name);
+		}
+	}
+
+	private static PDFLoaderServiceDefault loader(int parallelMinPages, int extractionThreads) {
+		return new PDFLoaderServiceDefault("courses", 500, 50, false, 1, 1, 1, 1, 8, 64, 16,
+			5, parallelMinPages, extractionThreads, "test", null, null, event -> { }, null, null, null, null);
+	}
+
+	private static Path writePdf(Path path, int pages) throws IOException {
+		try (PDDocument document = new PDDocument()) {
+			for (int number = 1; number <= pages; number++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+					content.beginText();
+					content.setFont(PDType1Font.HELVETICA, 12);
+					content.newLineAtOffset(72, 700);
+					content.showText("Page " + number + " du cours");
+					content.endText();
+				}
+			}
+			document.save(path.toFile());
+		}
+		return path;
+	}
+}
@@ -0,0 +1,42 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageAwareSplitterTest {
+
+	@Test
+	void segmentsCarryThePageWhereTheyStart() {
+		PageAwareSplitter splitter = new PageAwareSplitter(120, 20);
+		String page3 = "Le cloud computing fournit des ressources à la demande.\nLa facturation suit l'usage réel.";
+		String page4 = "La virtualisation isole les machines.\n\nUn hyperviseur partage le matériel physique entre plusieurs systèmes.";
+
+		List<TextSegment> segments = splitter.split(List.of(
+			new PageAwareSplitter.Page(3, page3),
+			new PageAwareSplitter.Page(4, "   \n"),
+			new PageAwareSplitter.Page(5, page4)));
+
+		assertTrue(segments.size() >= 2);
+		assertEquals(3, PageAwareSplitter.pageOf(segments.get(0)));
+		assertEquals(5, PageAwareSplitter.pageOf(segments.get(segments.size() - 1)));
+		for (TextSegment segment : segments) {
+			int page = PageAwareSplitter.pageOf(segment);
+			String source = page == 3 ? page3 : page4;
+			String start = PageAwareSplitter.normalize(segment.text()).substring(0, 10);
+			assertTrue(PageAwareSplitter.normalize(source).contains(start), segment.text() + " -> page " + page);
+		}
+	}
+
+	@Test
+	void blankWindowYieldsNoSegment() {
+		PageAwareSplitter splitter = new PageAwareSplitter(120, 20);
+
+		assertTrue(splitter.split(List.of(new PageAwareSplitter.Page(1, "\n \n"))).isEmpty());
+		assertEquals(0, PageAwareSplitter.pageOf(TextSegment.from("ancien chunk sans page")));
+	}
+}
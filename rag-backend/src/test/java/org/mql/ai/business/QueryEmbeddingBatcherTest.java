@@ -0,0 +1,97 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+import org.mql.ai.exceptions.RAGException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryEmbeddingBatcherTest {
+
+	@Test
+	void concurrentQuestionsShareEmbeddingCalls() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		EmbeddingModel model = new EmbeddingModel() {
+			@Override
+			public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+				calls.incrementAndGet();
+				sleep(20);
+				List<Embedding> embeddings = new ArrayList<>();
+				for (TextSegment segment : segments) {
+					embeddings.add(Embedding.from(new float[] {segment.text().length()}));
+				}
+				return Response.from(embeddings);
+			}
+		};
+		QueryEmbeddingBatcher batcher = new QueryEmbeddingBatcher(model, true, 5, 32, 1, 30);
+		ExecutorService clients = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+
+		try {
+			List<Future<Embedding>> results = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				String question = "q".repeat(i + 1);
+				results.add(clients.submit(() -> {
+					start.await();
+					return batcher.embed(question);
+				}));
+			}
+			start.countDown();
+
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals(i + 1, results.get(i).get().vector()[0]);
+			}
+			assertTrue(calls.get() < 16, "appels au modèle: " + calls.get());
+		} finally {
+			clients.shutdownNow();
+			batcher.shutdown();
+		}
+	}
+
+	@Test
+	void hungEmbeddingCallFailsTheQuestionAfterTheTimeout() {
+		CountDownLatch release = new CountDownLatch(1);
+		EmbeddingModel model = new EmbeddingModel() {
+			@Override
+			public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return Response.from(List.of(Embedding.from(new float[] {0})));
+			}
+		};
+		QueryEmbeddingBatcher batcher = new QueryEmbeddingBatcher(model, true, 5, 32, 1, 1);
+
+		try {
+			long start = System.nanoTime();
+			assertThrows(RAGException.class, () -> batcher.embed("question bloquée"));
+			assertTrue(System.nanoTime() - start < 5_000_000_000L);
+		} finally {
+			release.countDown();
+			batcher.shutdown();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package org.mql.ai.business;
+
+import org.mql.ai.models.ChatResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuestionCoalescerTest {
+
+	@Test
+	void identicalQuestionsShareOneFlight() {
+		QuestionCoalescer coalescer = new QuestionCoalescer(true, 10);
+
+		QuestionCoalescer.Participation leader = coalescer.join("What is IaaS?", "en", true);
+		QuestionCoalescer.Participation follower = coalescer.join("  what is  iaas? ", "en", true);
+		QuestionCoalescer.Participation other = coalescer.join("What is IaaS?", "en", false);
+
+		assertTrue(leader.leader());
+		assertFalse(follower.leader());
+		assertSame(leader.flight(), follower.flight());
+		assertTrue(other.leader());
+	}
+
+	@Test
+	void lateStreamingSubscriberGetsReplayAndCompletion() {
+		QuestionCoalescer coalescer = new QuestionCoalescer(true, 10);
+		QuestionCoalescer.Participation leader = coalescer.join("q", "fr", true);
+		RecordingListener first = new RecordingListener();
+		leader.flight().subscribe(first, false);
+
+		leader.flight().onToken("Bon");
+		RecordingListener late = new RecordingListener();
+		QuestionCoalescer.Participation follower = coalescer.join("q", "fr", true);
+		follower.flight().subscribe(late, true);
+		leader.flight().onToken("jour");
+
+		QuestionCoalescer.Flight flight = coalescer.join("q", "fr", true).flight();
+		CompletableFuture<ChatResponse> waiting = CompletableFuture.supplyAsync(() -> flight.await("timeout"));
+		leader.flight().onComplete(ChatResponse.success("Bonjour", null, 5));
+
+		assertFalse(first.completed.join().isCoalesced());
+		assertTrue(late.completed.join().isCoalesced());
+		assertEquals("Bonjour", String.join("", first.tokens));
+		assertEquals("Bonjour", String.join("", late.tokens));
+		assertEquals("Bonjour", waiting.join().getAnswer());
+		assertTrue(coalescer.join("q", "fr", true).leader());
+	}
+
+	@Test
+	void stalledOrBrokenSubscriberDoesNotHoldBackTheOthers() throws Exception {
+		QuestionCoalescer coalescer = new QuestionCoalescer(true, 10);
+		QuestionCoalescer.Flight flight = coalescer.join("q", "fr", true).flight();
+		CountDownLatch unblock = new CountDownLatch(1);
+		RecordingListener stalled = new RecordingListener() {
+			@Override
+			public void onToken(String token) {
+				awaitQuietly(unblock);
+				super.onToken(token);
+			}
+		};
+		RecordingListener broken = new RecordingListener() {
+			@Override
+			public void onToken(String token) {
+				throw new IllegalStateException("connexion fermée");
+			}
+		};
+		RecordingListener healthy = new RecordingListener();
+		flight.subscribe(stalled, false);
+		flight.subscribe(broken, true);
+		flight.subscribe(healthy, true);
+
+		// le thread du modèle n'attend aucun envoi
+		CompletableFuture.runAsync(() -> {
+			flight.onToken("Bon");
+			flight.onToken("jour");
+			flight.onComplete(ChatResponse.success("Bonjour", null, 5));
+		}).get(2, TimeUnit.SECONDS);
+
+		assertEquals("Bonjour", healthy.completed.get(2, TimeUnit.SECONDS).getAnswer());
+		assertEquals("Bonjour", String.join("", healthy.tokens));
+		assertFalse(stalled.completed.isDone());
+		unblock.countDown();
+		assertEquals("Bonjour", stalled.completed.get(2, TimeUnit.SECONDS).getAnswer());
+		assertFalse(broken.completed.isDone());
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class RecordingListener implements AnswerStreamListener {
+		private final List<String> tokens = Collections.synchronizedList(new ArrayList<>());
+		private final CompletableFuture<ChatResponse> completed = new CompletableFuture<>();
+
+		@Override
+		public void onToken(String token) {
+			tokens.add(token);
+		}
+
+		@Override
+		public void onComplete(ChatResponse response) {
+			completed.complete(response);
+		}
+
+		@Override
+		public void onError(String errorMessage) {
+		}
+	}
+}
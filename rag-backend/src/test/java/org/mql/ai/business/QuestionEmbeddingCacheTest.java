@@ -0,0 +1,47 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.embedding.Embedding;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class QuestionEmbeddingCacheTest {
+
+	@Test
+	void normalizedQuestionsHitTheCache() {
+		QuestionEmbeddingCache cache = new QuestionEmbeddingCache("nomic-embed-text", 10, 60);
+		AtomicInteger calls = new AtomicInteger();
+
+		Embedding first = cache.getOrCompute("What is  IaaS", q -> embed(calls));
+		Embedding second = cache.getOrCompute("  what is iaas ", q -> embed(calls));
+
+		assertSame(first, second);
+		assertEquals(1, calls.get());
+		assertEquals(1L, cache.getStats().get("hits"));
+		assertEquals(1L, cache.getStats().get("misses"));
+	}
+
+	@Test
+	void leastRecentlyUsedEntryIsEvicted() {
+		QuestionEmbeddingCache cache = new QuestionEmbeddingCache("nomic-embed-text", 2, 60);
+		AtomicInteger calls = new AtomicInteger();
+
+		cache.getOrCompute("a", q -> embed(calls));
+		cache.getOrCompute("b", q -> embed(calls));
+		cache.getOrCompute("a", q -> embed(calls));
+		cache.getOrCompute("c", q -> embed(calls));
+		cache.getOrCompute("a", q -> embed(calls));
+		cache.getOrCompute("b", q -> embed(calls));
+
+		assertEquals(4, calls.get());
+		assertEquals(2L, cache.getStats().get("evictions"));
+	}
+
+	private static Embedding embed(AtomicInteger calls) {
+		calls.incrementAndGet();
+		return Embedding.from(new float[] {1f, 0f});
+	}
+}
@@ -0,0 +1,35 @@
+package org.mql.ai.business;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RagMetricsTest {
+
+	@Test
+	void timingsAreRecordedPerStage() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RagMetrics metrics = new RagMetrics(registry);
+		Map<String, Long> timings = new LinkedHashMap<>();
+		timings.put("embedding", 12L);
+		timings.put("generation", 800L);
+
+		metrics.recordStages(timings);
+		metrics.recordStages(Map.of("generation", 200L));
+		metrics.recordCacheLookup("semantic-answer", true);
+		metrics.recordCacheLookups("chunk-embedding", 3, 1);
+
+		assertEquals(1000.0, registry.get("rag.query.stage").tag("stage", "generation")
+			.timer().totalTime(TimeUnit.MILLISECONDS));
+		assertEquals(1, registry.get("rag.query.stage").tag("stage", "embedding").timer().count());
+		assertEquals(1.0, registry.get("rag.cache.lookups").tags("cache", "semantic-answer", "result", "hit")
+			.counter().count());
+		assertEquals(3.0, registry.get("rag.cache.lookups").tags("cache", "chunk-embedding", "result", "hit")
+			.counter().count());
+	}
+}
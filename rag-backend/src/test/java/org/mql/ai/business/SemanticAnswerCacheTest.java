@@ -0,0 +1,64 @@
+package org.mql.ai.business;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemanticAnswerCacheTest {
+
+	private final SemanticAnswerCache cache = new SemanticAnswerCache(10, 0.95, 60);
+
+	@Test
+	void closeQuestionsHitAndDistantOnesMiss() {
+		cache.put(cache.generation(), embedding(1, 0, 0), "fr", List.of(match("cloud.pdf#0", "cloud.pdf")),
+			"réponse", List.of());
+
+		assertEquals("réponse", cache.lookup(embedding(1, 0.1f, 0), "fr").orElseThrow().getAnswer());
+		assertFalse(cache.lookup(embedding(1, 1, 0), "fr").isPresent());
+		assertFalse(cache.lookup(embedding(1, 0, 0), "en").isPresent());
+	}
+
+	@Test
+	void reindexingASourceInvalidatesByFileOrChunkId() {
+		long generation = cache.generation();
+		cache.put(generation, embedding(1, 0, 0), "fr", List.of(match("cloud.pdf#0", "cloud.pdf")), "cloud", List.of());
+		cache.put(generation, embedding(0, 1, 0), "fr", List.of(match("legacy-id", null)), "réseaux", List.of());
+		cache.put(generation, embedding(0, 0, 1), "fr", List.of(match("java.pdf#3", "java.pdf")), "java", List.of());
+
+		cache.onDocumentIndexChanged(new DocumentIndexChangedEvent("cloud.pdf"));
+		cache.onDocumentIndexChanged(new DocumentIndexChangedEvent("reseaux.pdf", List.of("legacy-id")));
+
+		assertFalse(cache.lookup(embedding(1, 0, 0), "fr").isPresent());
+		assertFalse(cache.lookup(embedding(0, 1, 0), "fr").isPresent());
+		assertTrue(cache.lookup(embedding(0, 0, 1), "fr").isPresent());
+	}
+
+	@Test
+	void answerGeneratedDuringReindexingIsNotCached() {
+		long generation = cache.generation();
+		// réindexation pendant la génération : rien à invalider, la réponse n'est pas encore en cache
+		cache.onDocumentIndexChanged(new DocumentIndexChangedEvent("cloud.pdf", List.of("cloud.pdf#0")));
+		cache.put(generation, embedding(1, 0, 0), "fr", List.of(match("cloud.pdf#0", "cloud.pdf")),
+			"réponse périmée", List.of());
+
+		assertFalse(cache.lookup(embedding(1, 0, 0), "fr").isPresent());
+		assertEquals(1L, cache.getStats().get("discarded"));
+	}
+
+	private static Embedding embedding(float... vector) {
+		return Embedding.from(vector);
+	}
+
+	private static EmbeddingMatch<TextSegment> match(String id, String fileName) {
+		Metadata metadata = fileName == null ? new Metadata() : Metadata.from("file_name", fileName);
+		return new EmbeddingMatch<>(0.9, id, embedding(1, 0, 0), TextSegment.from("texte", metadata));
+	}
+}
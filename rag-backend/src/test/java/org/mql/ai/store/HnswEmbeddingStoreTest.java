@@ -0,0 +1,176 @@
+package org.mql.ai.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswEmbeddingStoreTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void searchFindsExactNeighboursAndSurvivesSnapshot() {
+		Random random = new Random(7);
+		List<Embedding> embeddings = new ArrayList<>();
+		List<TextSegment> segments = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			float[] vector = new float[32];
+			for (int d = 0; d < vector.length; d++) {
+				vector[d] = (float) random.nextGaussian();
+			}
+			embeddings.add(Embedding.from(vector));
+			segments.add(TextSegment.from("chunk " + i, Metadata.from("file_name", i % 2 == 0 ? "pair.pdf" : "impair.pdf")));
+		}
+
+		Path snapshot = tempDir.resolve("hnsw.bin");
+		HnswEmbeddingStore store = new HnswEmbeddingStore(HnswOptions.defaults(snapshot));
+		List<String> ids = store.addAll(embeddings, segments);
+
+		// recall@10 contre une recherche exacte
+		int found = 0;
+		for (int q = 0; q < 50; q++) {
+			Embedding query = embeddings.get(q * 37);
+			Set<String> expected = exactTop(query, embeddings, ids, 10);
+			found += (int) search(store, query, 10).stream().filter(expected::contains).count();
+		}
+		assertTrue(found / 500.0 >= 0.95, "recall trop faible: " + found / 500.0);
+
+		store.removeAll(metadataKey("file_name").isEqualTo("impair.pdf"));
+		assertEquals(1000, store.size());
+		store.close();
+
+		HnswEmbeddingStore reloaded = new HnswEmbeddingStore(HnswOptions.defaults(snapshot));
+		assertEquals(1000, reloaded.size());
+		List<EmbeddingMatch<TextSegment>> matches = reloaded.search(EmbeddingSearchRequest.builder()
+			.queryEmbedding(embeddings.get(42)).maxResults(1).build()).matches();
+		assertEquals(ids.get(42), matches.get(0).embeddingId());
+		assertEquals("pair.pdf", matches.get(0).embedded().metadata().getString("file_name"));
+		reloaded.close();
+	}
+
+	@Test
+	void retiredGraphKeepsItsVectorsUntilTheLastSearchReleasesIt() {
+		HnswGraph graph = new HnswGraph(4, 16, 200, 16, new QuantizedVectorStorage(4, 16, tempDir));
+		graph.insert("a", HnswGraph.normalize(new float[] {1, 2, 3, 4}), null);
+
+		assertTrue(graph.retain());
+		graph.release();
+		assertEquals(4, graph.vector(0).length);
+
+		graph.release();
+		assertFalse(graph.retain());
+	}
+
+	@Test
+	void quantizedSearchIsRerankedWithExactVectors() {
+		Random random = new Random(11);
+		List<Embedding> embeddings = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			float[] vector = new float[64];
+			for (int d = 0; d < vector.length; d++) {
+				vector[d] = (float) random.nextGaussian();
+			}
+			embeddings.add(Embedding.from(vector));
+		}
+
+		HnswEmbeddingStore store = new HnswEmbeddingStore(HnswOptions.defaults(null)
+			.withQuantization(tempDir, 4)
+			.withRecallSampleRate(1.0));
+		List<String> ids = store.addAll(embeddings);
+
+		int found = 0;
+		for (int q = 0; q < 20; q++) {
+			Embedding query = embeddings.get(q * 13);
+			Set<String> expected = exactTop(query, embeddings, ids, 10);
+			List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+				.queryEmbedding(query).maxResults(10).build()).matches();
+			// score exact après réordonnancement : le vecteur lui-même est en tête avec un cosinus de 1
+			assertEquals(ids.get(q * 13), matches.get(0).embeddingId());
+			assertEquals(1.0, matches.get(0).score(), 1e-5);
+			found += (int) matches.stream().map(EmbeddingMatch::embeddingId).filter(expected::contains).count();
+		}
+		assertTrue(found / 200.0 >= 0.9, "recall trop faible: " + found / 200.0);
+
+		// codes int8 + échelle : ~4x moins que 64 floats par vecteur
+		long bytes = (long) store.getStats().get("vectorMemoryBytes");
+		assertTrue(bytes < 1024L * 64 * Float.BYTES / 3, "mémoire: " + bytes);
+		store.close();
+	}
+
+	@Test
+	void snapshotsTakenDuringIngestionReloadConsistently() throws Exception {
+		Random random = new Random(3);
+		List<Embedding> embeddings = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			float[] vector = new float[16];
+			for (int d = 0; d < vector.length; d++) {
+				vector[d] = (float) random.nextGaussian();
+			}
+			embeddings.add(Embedding.from(vector));
+		}
+		Path snapshot = tempDir.resolve("hnsw.bin");
+		HnswEmbeddingStore store = new HnswEmbeddingStore(HnswOptions.defaults(snapshot));
+
+		// l'écriture du snapshot se fait hors verrou : les ajouts continuent pendant save()
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < embeddings.size(); i += 20) {
+				store.addAll(embeddings.subList(i, i + 20));
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			store.save();
+			HnswEmbeddingStore partial = new HnswEmbeddingStore(HnswOptions.defaults(snapshot));
+			int size = partial.size();
+			assertEquals(0, size % 20, "snapshot au milieu d'un lot: " + size);
+			if (size > 0) {
+				assertEquals(1, search(partial, embeddings.get(0), 1).size());
+			}
+			partial.close();
+		}
+		writer.join();
+		store.close();
+
+		HnswEmbeddingStore reloaded = new HnswEmbeddingStore(HnswOptions.defaults(snapshot));
+		assertEquals(600, reloaded.size());
+		reloaded.close();
+	}
+
+	private List<String> search(HnswEmbeddingStore store, Embedding query, int k) {
+		return store.search(EmbeddingSearchRequest.builder().queryEmbedding(query).maxResults(k).build())
+			.matches().stream().map(EmbeddingMatch::embeddingId).collect(Collectors.toList());
+	}
+
+	private Set<String> exactTop(Embedding query, List<Embedding> embeddings, List<String> ids, int k) {
+		float[] q = HnswGraph.normalize(query.vector());
+		Integer[] order = new Integer[embeddings.size()];
+		double[] scores = new double[embeddings.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+			float[] v = HnswGraph.normalize(embeddings.get(i).vector());
+			for (int d = 0; d < v.length; d++) {
+				scores[i] += q[d] * v[d];
+			}
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+		Set<String> top = new HashSet<>();
+		for (int i = 0; i < k; i++) {
+			top.add(ids.get(order[i]));
+		}
+		return top;
+	}
+}
@@ -1,4 +1,8 @@
 const API_BASE_URL = 'http://localhost:8080/api';
+// au-delà, upload découpé reprenable (limite multipart du backend : 50 Mo)
+const CHUNKED_UPLOAD_THRESHOLD = 32 * 1024 * 1024;
+const UPLOAD_CHUNK_SIZE = 8 * 1024 * 1024;
+const UPLOAD_CHUNK_RETRIES = 3;
 
 class ApiService {
   
@@ -14,6 +18,10 @@ class ApiService {
 
             if (!response.ok) {
                 const error = await response.json();
+                // 503 : modèle saturé, le message indique quand réessayer (Retry-After)
+                if (response.status === 503) {
+                    throw new Error(error.message || 'Server busy');
+                }
                 throw new Error(error.error || error.errorMessage || 'Server error');
             }
 
@@ -55,6 +63,9 @@ class ApiService {
     }
 
     async uploadDocument(file) {
+        if (file.size > CHUNKED_UPLOAD_THRESHOLD) {
+            return this.uploadDocumentChunked(file);
+        }
         try {
             const formData = new FormData();
             formData.append('file', file);
@@ -69,13 +80,97 @@ class ApiService {
                 throw new Error(error.error || 'Upload error');
             }
 
-            return await response.json();
+            const job = await response.json();
+            return await this.waitForJob(job.id);
         } catch (error) {
             console.error('Error uploadDocument:', error);
             throw error;
         }
     }
 
+    async uploadDocumentChunked(file) {
+        try {
+            const params = new URLSearchParams({ fileName: file.name, size: file.size });
+            const response = await fetch(`${API_BASE_URL}/documents/uploads?${params}`, {
+                method: 'POST',
+            });
+
+            if (!response.ok) {
+                const error = await response.json();
+                throw new Error(error.error || 'Upload error');
+            }
+
+            const session = await response.json();
+            let offset = 0;
+            let retries = 0;
+
+            while (offset < file.size) {
+                const chunk = file.slice(offset, offset + UPLOAD_CHUNK_SIZE);
+                try {
+                    const chunkResponse = await fetch(
+                        `${API_BASE_URL}/documents/uploads/${session.id}?offset=${offset}`, {
+                            method: 'PUT',
+                            headers: { 'Content-Type': 'application/octet-stream' },
+                            body: chunk,
+                        });
+                    const state = await chunkResponse.json();
+                    if (!chunkResponse.ok && chunkResponse.status !== 409) {
+                        throw new Error(state.error || 'Upload error');
+                    }
+                    offset = state.receivedBytes;
+                    retries = 0;
+                } catch (error) {
+                    if (++retries > UPLOAD_CHUNK_RETRIES) {
+                        throw error;
+                    }
+                    // reprise à l'offset connu du serveur
+                    const stateResponse = await fetch(`${API_BASE_URL}/documents/uploads/${session.id}`);
+                    offset = (await stateResponse.json()).receivedBytes;
+                }
+            }
+
+            const completeResponse = await fetch(`${API_BASE_URL}/documents/uploads/${session.id}/complete`, {
+                method: 'POST',
+            });
+            const job = await completeResponse.json();
+
+            if (!completeResponse.ok) {
+                throw new Error(job.error || 'Upload error');
+            }
+
+            return await this.waitForJob(job.id);
+        } catch (error) {
+            console.error('Error uploadDocumentChunked:', error);
+            throw error;
+        }
+    }
+
+    async getJob(jobId) {
+        const response = await fetch(`${API_BASE_URL}/documents/jobs/${encodeURIComponent(jobId)}`);
+
+        if (!response.ok) {
+            const error = await response.json();
+            throw new Error(error.error || 'Job error');
+        }
+
+        return await response.json();
+    }
+
+    async waitForJob(jobId, intervalMs = 1000) {
+        while (true) {
+            const job = await this.getJob(jobId);
+
+            if (job.state === 'COMPLETED') {
+                return job.document;
+            }
+            if (job.state === 'FAILED') {
+                throw new Error(job.error || 'Indexing error');
+            }
+
+            await new Promise((resolve) => setTimeout(resolve, intervalMs));
+        }
+    }
+
     async indexAllDocuments() {
         try {
             const response = await fetch(`${API_BASE_URL}/documents/index-all`, {